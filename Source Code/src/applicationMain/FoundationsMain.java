@@ -8,6 +8,7 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import services.ThreadService;
 import studentPosts.InMemoryPostRepository;
+import studentPosts.PostRepository;
 
 /******
  * <p> Title: FoundationsMain Class </p>
@@ -82,7 +83,7 @@ public class FoundationsMain extends Application {
 
 	//ADDED THIS 
 	public static final ThreadService threadService = new ThreadService();
-	public static final InMemoryPostRepository postRepo = new InMemoryPostRepository();
+	public static final PostRepository postRepo = new InMemoryPostRepository();
 //    public static final controllerStudentBoard discussionService = new controllerStudentBoard(threadService);
 	public static final review.ReviewService reviewService = new review.ReviewService();
 	
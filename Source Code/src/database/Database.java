@@ -6,10 +6,18 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import entityClasses.User;
+import entityClasses.UserDirectoryPage;
+import entityClasses.UserSummary;
 import entityClasses.Request;
 import java.time.LocalDateTime;
 
@@ -60,6 +68,21 @@ public class Database {
 	private boolean currentAdminRole;
 	private boolean currentNewRole1;
 	private boolean currentNewRole2;
+	
+	// Every username in the user table, kept in memory so existence checks and autocomplete do
+	// not need a query.  It is loaded when the connection is made and kept current by register
+	// and deleteUserByUsername.
+	private final UsernameTrie userNames = new UsernameTrie();
+	private boolean userNamesLoaded = false;
+	
+	// Running totals for the admin dashboards.  They are seeded with one query when the
+	// connection is made and then adjusted by every method that inserts or deletes the rows they
+	// count, so reading them never needs a COUNT(*).
+	private final AtomicInteger userCount = new AtomicInteger();
+	private final AtomicInteger invitationCount = new AtomicInteger();
+	private final AtomicInteger openRequestCount = new AtomicInteger();
+	private final AtomicInteger closedRequestCount = new AtomicInteger();
+	private boolean countersSeeded = false;
 
 	/*******
 	 * <p> Method: Database </p>
@@ -91,6 +114,8 @@ public class Database {
 			//statement.execute("DROP ALL OBJECTS");
 			
 			createTables();  // Create the necessary tables if they don't exist
+			loadUserNames(); // Build the in-memory username trie
+			seedCounters();  // Establish the running totals
 		} catch (ClassNotFoundException e) {
 			System.err.println("JDBC Driver not found: " + e.getMessage());
 		}
@@ -141,6 +166,44 @@ public class Database {
 	}
 
 
+/*******
+ * <p> Method: loadUserNames </p>
+ * 
+ * <p> Description: Used to fill the in-memory username trie from the user table.</p>
+ * 
+ */
+	private void loadUserNames() throws SQLException {
+		userNames.clear();
+		try (ResultSet rs = statement.executeQuery("SELECT userName FROM userDB")) {
+			while (rs.next()) userNames.add(rs.getString(1));
+		}
+		userNamesLoaded = true;
+	}
+
+
+/*******
+ * <p> Method: seedCounters </p>
+ * 
+ * <p> Description: Used to set the running totals from the tables, in one round trip.</p>
+ * 
+ */
+	private void seedCounters() throws SQLException {
+		String query = "SELECT (SELECT COUNT(*) FROM userDB), "
+				+ "(SELECT COUNT(*) FROM InvitationCodes), "
+				+ "(SELECT COUNT(*) FROM Requests WHERE status = 'OPEN'), "
+				+ "(SELECT COUNT(*) FROM Requests WHERE status = 'CLOSED')";
+		try (ResultSet rs = statement.executeQuery(query)) {
+			if (rs.next()) {
+				userCount.set(rs.getInt(1));
+				invitationCount.set(rs.getInt(2));
+				openRequestCount.set(rs.getInt(3));
+				closedRequestCount.set(rs.getInt(4));
+				countersSeeded = true;
+			}
+		}
+	}
+
+
 /*******
  * <p> Method: isDatabaseEmpty </p>
  * 
@@ -150,6 +213,7 @@ public class Database {
  * 
  */
 	public boolean isDatabaseEmpty() {
+		if (countersSeeded) return userCount.get() == 0;
 		String query = "SELECT COUNT(*) AS count FROM userDB";
 		try {
 			ResultSet resultSet = statement.executeQuery(query);
@@ -176,7 +240,12 @@ public class Database {
 	    String q = "DELETE FROM userDB WHERE userName = ?";
 	    try (PreparedStatement ps = connection.prepareStatement(q)) {
 	        ps.setString(1, username);
-	        return ps.executeUpdate() > 0;
+	        int rows = ps.executeUpdate();
+	        if (rows > 0) {
+	        	userNames.remove(username);
+	        	userCount.addAndGet(-rows);
+	        }
+	        return rows > 0;
 	    } catch (SQLException e) {
 	        e.printStackTrace();
 	        return false;
@@ -192,6 +261,7 @@ public class Database {
  * 
  */
 	public int getNumberOfUsers() {
+		if (countersSeeded) return userCount.get();
 		String query = "SELECT COUNT(*) AS count FROM userDB";
 		try {
 			ResultSet resultSet = statement.executeQuery(query);
@@ -250,6 +320,8 @@ public class Database {
 			pstmt.setBoolean(10, currentNewRole2);
 			
 			pstmt.executeUpdate();
+			userNames.add(currentUsername);
+			userCount.incrementAndGet();
 		}
 		
 	}
@@ -278,6 +350,97 @@ public class Database {
 		return userList;
 	}
 
+/*******
+ *  <p> Method: UserDirectoryPage getUserDirectoryPage(String prefix, String cursor,
+ *  	int pageSize) </p>
+ *  
+ *  <P> Description: Return one page of the user directory, in username order, limited to the
+ *  usernames that start with the given prefix.  The prefix and the cursor are both turned into
+ *  range conditions on userName, so the query walks the index that backs the UNIQUE constraint
+ *  on that column and never reads more than one page of rows.  Unlike getUserList(), no
+ *  "<Select a User>" row is added; that is the caller's choice. </p>
+ *  
+ *  @param prefix is the username prefix to match, or null or empty for every user
+ *  
+ *  @param cursor is the nextCursor of the previous page, or null for the first page
+ *  
+ *  @param pageSize is the largest number of rows to return
+ *  
+ *  @return the page of users, or an empty page if the query fails
+ */
+	public UserDirectoryPage getUserDirectoryPage(String prefix, String cursor, int pageSize) {
+		List<UserSummary> users = new ArrayList<UserSummary>();
+		if (pageSize <= 0) return new UserDirectoryPage(users, null);
+		boolean hasPrefix = prefix != null && !prefix.isEmpty();
+
+		String query = "SELECT userName, firstName, lastName, adminRole, newRole1, newRole2 "
+				+ "FROM userDB WHERE 1 = 1"
+				+ (hasPrefix ? " AND userName >= ? AND userName < ?" : "")
+				+ (cursor != null ? " AND userName > ?" : "")
+				+ " ORDER BY userName LIMIT ?";
+		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+			int p = 1;
+			if (hasPrefix) {
+				pstmt.setString(p++, prefix);
+				pstmt.setString(p++, prefix + Character.MAX_VALUE);
+			}
+			if (cursor != null) pstmt.setString(p++, cursor);
+			pstmt.setInt(p, pageSize + 1);		// One extra row tells us if there is a next page
+			try (ResultSet rs = pstmt.executeQuery()) {
+				while (rs.next()) {
+					users.add(new UserSummary(rs.getString(1), rs.getString(2), rs.getString(3),
+							rs.getBoolean(4), rs.getBoolean(5), rs.getBoolean(6)));
+				}
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+			return new UserDirectoryPage(new ArrayList<UserSummary>(), null);
+		}
+		
+		String nextCursor = null;
+		if (users.size() > pageSize) {
+			users.remove(pageSize);
+			nextCursor = users.get(pageSize - 1).getUserName();
+		}
+		return new UserDirectoryPage(users, nextCursor);
+	}
+
+	// The number of rows H2 is asked to hand over per fetch when streaming the user report
+	private static final int REPORT_FETCH_SIZE = 500;
+
+/*******
+ *  <p> Method: int forEachUserReportRow(Consumer action) </p>
+ *  
+ *  <P> Description: Stream every user, in username order, with the columns the admin user
+ *  report needs (username, first and last name, email address, and the role flags).  This is a
+ *  single query whose rows are handed to the action as they are read, so building the report
+ *  does not need a getUserAccountDetails call per user and never holds every row at once. </p>
+ *  
+ *  @param action is called once for each user
+ *  
+ *  @return the number of rows passed to the action, or -1 if the query fails
+ */
+	public int forEachUserReportRow(Consumer<UserSummary> action) {
+		String query = "SELECT userName, firstName, lastName, emailAddress, adminRole, newRole1, "
+				+ "newRole2 FROM userDB ORDER BY userName";
+		int rows = 0;
+		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+			pstmt.setFetchSize(REPORT_FETCH_SIZE);
+			try (ResultSet rs = pstmt.executeQuery()) {
+				while (rs.next()) {
+					action.accept(new UserSummary(rs.getString(1), rs.getString(2),
+							rs.getString(3), rs.getString(4), rs.getBoolean(5), rs.getBoolean(6),
+							rs.getBoolean(7)));
+					rows++;
+				}
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+			return -1;
+		}
+		return rows;
+	}
+
 /*******
  * <p> Method: boolean loginAdmin(User user) </p>
  * 
@@ -368,8 +531,10 @@ public class Database {
 	 * @return true if the specified user is in the table else false.
 	 * 
 	 */
-	// Checks if a user already exists in the database based on their userName.
+	// Checks if a user already exists in the database based on their userName.  Once the
+	// username trie has been loaded, it answers without a query.
 	public boolean doesUserExist(String userName) {
+		if (userNamesLoaded) return userNames.contains(userName);
 	    String query = "SELECT COUNT(*) FROM userDB WHERE userName = ?";
 	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        
@@ -387,6 +552,25 @@ public class Database {
 	}
 
 	
+	/*******
+	 * <p> Method: List completeUserNames(String prefix, int limit) </p>
+	 * 
+	 * <p> Description: Return up to limit usernames that start with the prefix, in alphabetical
+	 * order, using the in-memory username trie.  This is cheap enough to call on every keystroke.
+	 * </p>
+	 * 
+	 * @param prefix is the start of the usernames wanted; empty matches every username
+	 * 
+	 * @param limit is the largest number of usernames to return
+	 * 
+	 * @return the matching usernames
+	 * 
+	 */
+	public List<String> completeUserNames(String prefix, int limit) {
+		return userNames.complete(prefix, limit);
+	}
+
+	
 	/*******
 	 * <p> Method: int getNumberOfRoles(User user) </p>
 	 * 
@@ -431,7 +615,7 @@ public class Database {
 	        pstmt.setString(1, code);
 	        pstmt.setString(2, emailAddress);
 	        pstmt.setString(3, role);
-	        pstmt.executeUpdate();
+	        invitationCount.addAndGet(pstmt.executeUpdate());
 	    } catch (SQLException e) {
 	        e.printStackTrace();
 	    }
@@ -449,6 +633,7 @@ public class Database {
 	 */
 	// Number of invitations in the database
 	public int getNumberOfInvitations() {
+		if (countersSeeded) return invitationCount.get();
 		String query = "SELECT COUNT(*) AS count FROM InvitationCodes";
 		try {
 			ResultSet resultSet = statement.executeQuery(query);
@@ -563,7 +748,7 @@ public class Database {
         			query = "DELETE FROM InvitationCodes WHERE code = ?";
 	        		try (PreparedStatement pstmt2 = connection.prepareStatement(query)) {
 	        			pstmt2.setString(1, code);
-	        			pstmt2.executeUpdate();
+	        			invitationCount.addAndGet(-pstmt2.executeUpdate());
 	        		}catch (SQLException e) {
 	        	        e.printStackTrace();
 	        	    }
@@ -939,6 +1124,226 @@ public class Database {
 	}
 	
 	
+	/*******
+	 * <p> Enum: RoleUpdateOutcome </p>
+	 * 
+	 * <p> Description: The per-user result reported by the bulk role update methods.</p>
+	 * 
+	 * UPDATED - the role value was changed for this user
+	 * UNCHANGED - the user already had the requested value, so no write was needed
+	 * NOT_FOUND - there is no user with this username
+	 * FAILED - the role was not recognized or the transaction was rolled back
+	 */
+	public enum RoleUpdateOutcome { UPDATED, UNCHANGED, NOT_FOUND, FAILED }
+
+	// The largest number of usernames placed into a single IN (...) clause
+	private static final int BULK_CHUNK_SIZE = 500;
+
+
+	/*******
+	 * <p> Method: Map bulkUpdateUserRole(List usernames, String role, String value) </p>
+	 * 
+	 * <p> Description: Set or clear one role for a list of users in a single transaction.  The
+	 * current values are read with a few chunked queries and the changes are sent as one JDBC
+	 * batch, so promoting a whole cohort does not cost one round trip per user.  If anything goes
+	 * wrong the whole transaction is rolled back and every found user is reported as FAILED.</p>
+	 * 
+	 * @param usernames is the list of usernames to update (duplicates are ignored)
+	 * 
+	 * @param role is string that specifies the role to update
+	 * 
+	 * @param value is the string that specified TRUE or FALSE for the role
+	 * 
+	 * @return the outcome for each username, in the order the usernames were given
+	 *  
+	 */
+	public Map<String, RoleUpdateOutcome> bulkUpdateUserRole(List<String> usernames, String role,
+			String value) {
+		Map<String, RoleUpdateOutcome> outcomes = new LinkedHashMap<String, RoleUpdateOutcome>();
+		if (usernames == null) return outcomes;
+		List<String> names = new ArrayList<String>(new LinkedHashSet<String>(usernames));
+		names.remove(null);
+
+		String column = roleColumn(role);
+		if (column == null) {
+			for (String name : names) outcomes.put(name, RoleUpdateOutcome.FAILED);
+			return outcomes;
+		}
+		boolean newValue = value != null && value.compareTo("true") == 0;
+
+		// Assume failure until the batch records the real outcome for each user
+		for (String name : names) outcomes.put(name, RoleUpdateOutcome.FAILED);
+		return runRoleTransaction(outcomes, column, newValue, () -> {
+			// Fetch the current value of the role for every user that exists
+			Map<String, Boolean> current = new HashMap<String, Boolean>();
+			for (int from = 0; from < names.size(); from += BULK_CHUNK_SIZE) {
+				List<String> chunk = names.subList(from, Math.min(names.size(),
+						from + BULK_CHUNK_SIZE));
+				String query = "SELECT userName, " + column + " FROM userDB WHERE userName IN ("
+						+ String.join(", ", java.util.Collections.nCopies(chunk.size(), "?")) + ")";
+				try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+					for (int i = 0; i < chunk.size(); i++) pstmt.setString(i + 1, chunk.get(i));
+					try (ResultSet rs = pstmt.executeQuery()) {
+						while (rs.next()) current.put(rs.getString(1), rs.getBoolean(2));
+					}
+				}
+			}
+			applyRoleBatch(names, current, column, newValue, outcomes);
+		});
+	}
+
+
+	/*******
+	 * <p> Method: Map bulkUpdateUserRoleMatching(String role, String value, String requiredRole,
+	 * 		String userNamePrefix) </p>
+	 * 
+	 * <p> Description: Set or clear one role for every user that matches a filter, in a single
+	 * transaction.  A user matches when it plays the required role (if one is given) and its
+	 * username starts with the prefix (if one is given).  For example, revoking "Staff" from
+	 * everyone at the end of a term is bulkUpdateUserRoleMatching("Staff", "false", "Staff",
+	 * null).</p>
+	 * 
+	 * @param role is string that specifies the role to update
+	 * 
+	 * @param value is the string that specified TRUE or FALSE for the role
+	 * 
+	 * @param requiredRole is the role a user must already play to match, or null for any user
+	 * 
+	 * @param userNamePrefix is the prefix a username must start with, or null for any username
+	 * 
+	 * @return the outcome for each matching username, in username order
+	 *  
+	 */
+	public Map<String, RoleUpdateOutcome> bulkUpdateUserRoleMatching(String role, String value,
+			String requiredRole, String userNamePrefix) {
+		Map<String, RoleUpdateOutcome> outcomes = new LinkedHashMap<String, RoleUpdateOutcome>();
+		String column = roleColumn(role);
+		String requiredColumn = roleColumn(requiredRole);
+		if (column == null || (requiredRole != null && requiredColumn == null)) return outcomes;
+		boolean newValue = value != null && value.compareTo("true") == 0;
+
+		String query = "SELECT userName, " + column + " FROM userDB WHERE 1 = 1"
+				+ (requiredColumn == null ? "" : " AND " + requiredColumn + " = TRUE")
+				+ (userNamePrefix == null ? "" : " AND userName LIKE ? ESCAPE '\\'")
+				+ " ORDER BY userName";
+		return runRoleTransaction(outcomes, column, newValue, () -> {
+			List<String> names = new ArrayList<String>();
+			Map<String, Boolean> current = new HashMap<String, Boolean>();
+			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+				if (userNamePrefix != null)
+					pstmt.setString(1, userNamePrefix.replace("\\", "\\\\").replace("%", "\\%")
+							.replace("_", "\\_") + "%");
+				try (ResultSet rs = pstmt.executeQuery()) {
+					while (rs.next()) {
+						names.add(rs.getString(1));
+						current.put(rs.getString(1), rs.getBoolean(2));
+					}
+				}
+			}
+			applyRoleBatch(names, current, column, newValue, outcomes);
+		});
+	}
+
+
+	// The body of a bulk role transaction; it may throw so the caller can roll back
+	private interface RoleTransaction {
+		void run() throws SQLException;
+	}
+
+
+	/*******
+	 * <p> Method: Map runRoleTransaction(Map outcomes, String column, boolean newValue,
+	 * 		RoleTransaction work) </p>
+	 * 
+	 * <p> Description: Run the work with auto-commit turned off, commit it, and restore the
+	 * connection's auto-commit setting.  If the work fails, roll back and mark every user that
+	 * was going to be written as FAILED.  The current user attributes are only brought in step
+	 * once the commit has succeeded, so a rollback leaves them as they were.</p>
+	 * 
+	 */
+	private Map<String, RoleUpdateOutcome> runRoleTransaction(
+			Map<String, RoleUpdateOutcome> outcomes, String column, boolean newValue,
+			RoleTransaction work) {
+		boolean autoCommit = true;
+		try {
+			autoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+			work.run();
+			connection.commit();
+			if (outcomes.get(currentUsername) == RoleUpdateOutcome.UPDATED) {
+				if (column.equals("adminRole")) currentAdminRole = newValue;
+				else if (column.equals("newRole1")) currentNewRole1 = newValue;
+				else currentNewRole2 = newValue;
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+			try {
+				connection.rollback();
+			} catch (SQLException se) {
+				se.printStackTrace();
+			}
+			for (Map.Entry<String, RoleUpdateOutcome> entry : outcomes.entrySet())
+				if (entry.getValue() != RoleUpdateOutcome.NOT_FOUND)
+					entry.setValue(RoleUpdateOutcome.FAILED);
+		} finally {
+			try {
+				connection.setAutoCommit(autoCommit);
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+		return outcomes;
+	}
+
+
+	/*******
+	 * <p> Method: void applyRoleBatch(List names, Map current, String column, boolean newValue,
+	 * 		Map outcomes) </p>
+	 * 
+	 * <p> Description: Record the outcome for each username and send one batched UPDATE for the
+	 * users whose role value actually changes.</p>
+	 * 
+	 */
+	private void applyRoleBatch(List<String> names, Map<String, Boolean> current, String column,
+			boolean newValue, Map<String, RoleUpdateOutcome> outcomes) throws SQLException {
+		String query = "UPDATE userDB SET " + column + " = ? WHERE userName = ?";
+		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+			for (String name : names) {
+				Boolean old = current.get(name);
+				if (old == null) {
+					outcomes.put(name, RoleUpdateOutcome.NOT_FOUND);
+				} else if (old == newValue) {
+					outcomes.put(name, RoleUpdateOutcome.UNCHANGED);
+				} else {
+					pstmt.setBoolean(1, newValue);
+					pstmt.setString(2, name);
+					pstmt.addBatch();
+					outcomes.put(name, RoleUpdateOutcome.UPDATED);
+				}
+			}
+			pstmt.executeBatch();
+		}
+	}
+
+
+	/*******
+	 * <p> Method: String roleColumn(String role) </p>
+	 * 
+	 * <p> Description: Map a role name to its column in the user table.  The Add/Remove Roles page
+	 * lists the roles as "Role1" and "Role2", so those names are accepted as well as "Student" and
+	 * "Staff".</p>
+	 * 
+	 * @return the column name, or null if the role is not recognized
+	 */
+	private static String roleColumn(String role) {
+		if (role == null) return null;
+		if (role.compareTo("Admin") == 0) return "adminRole";
+		if (role.compareTo("Student") == 0 || role.compareTo("Role1") == 0) return "newRole1";
+		if (role.compareTo("Staff") == 0 || role.compareTo("Role2") == 0) return "newRole2";
+		return null;
+	}
+	
+	
 	// Attribute getters for the current user
 	/*******
 	 * <p> Method: String getCurrentUsername() </p>
@@ -1105,7 +1510,7 @@ public class Database {
 	        ps.setString(2, description);
 	        ps.setString(3, createdBy);
 	        // Execute string
-	        ps.executeUpdate();
+	        openRequestCount.addAndGet(ps.executeUpdate());
 	        try (ResultSet rs = ps.getGeneratedKeys()) {
 	            if (rs.next()) return rs.getInt(1);
 	        }
@@ -1132,6 +1537,46 @@ public class Database {
 	}
 
 	
+	/*******
+	 * <p> Method: int getNumberOfOpenRequests() </p>
+	 * 
+	 * <p> Description: Determine the number of requests whose status is OPEN.</p>
+	 *  
+	 * @return the number of open requests.
+	 * 
+	 */
+	public int getNumberOfOpenRequests() {
+		if (countersSeeded) return openRequestCount.get();
+		return countRequestsByStatus("OPEN");
+	}
+
+	
+	/*******
+	 * <p> Method: int getNumberOfClosedRequests() </p>
+	 * 
+	 * <p> Description: Determine the number of requests whose status is CLOSED.</p>
+	 *  
+	 * @return the number of closed requests.
+	 * 
+	 */
+	public int getNumberOfClosedRequests() {
+		if (countersSeeded) return closedRequestCount.get();
+		return countRequestsByStatus("CLOSED");
+	}
+
+	// Fallback used before the counters have been seeded
+	private int countRequestsByStatus(String status) {
+	    String sql = "SELECT COUNT(*) FROM Requests WHERE status = ?";
+	    try (PreparedStatement ps = connection.prepareStatement(sql)) {
+	        ps.setString(1, status);
+	        try (ResultSet rs = ps.executeQuery()) {
+	            if (rs.next()) return rs.getInt(1);
+	        }
+	    } catch (SQLException e) { e.printStackTrace(); }
+	    return 0;
+	}
+
+	
 	// Reading Request by id
 	public Request getRequest(int id) {
 	    String sql = "SELECT * FROM Requests WHERE id = ?";
@@ -1148,16 +1593,22 @@ public class Database {
 	// || concatenates strings in PostgreSQL/SQLite. In MySQL, 
 	// || is logical OR unless PIPES_AS_CONCAT mode is on—use CONCAT there.
 	
+	// The close only changes the counters when the request was still OPEN, so the note and
+	// close are applied to OPEN rows first; an already closed request just gets the note.
 	public boolean addAdminNoteAndClose(int id, String adminUser, String note) {
 	    // append note and close
-	    String sql = "UPDATE Requests SET adminNotes = COALESCE(adminNotes,'') || ? , status='CLOSED' WHERE id=?";
+	    String sql = "UPDATE Requests SET adminNotes = COALESCE(adminNotes,'') || ? , status='CLOSED' WHERE id=? AND status='OPEN'";
 	    try (PreparedStatement ps = connection.prepareStatement(sql)) {
 	        String entry = "\n[" + adminUser + "] " + note;
 	        ps.setString(1, entry);
 	        ps.setInt(2, id);
-	        return ps.executeUpdate() == 1;
-	    } catch (SQLException e) { e.printStackTrace(); }
-	    return false;
+	        if (ps.executeUpdate() == 1) {
+	        	openRequestCount.decrementAndGet();
+	        	closedRequestCount.incrementAndGet();
+	        	return true;
+	        }
+	    } catch (SQLException e) { e.printStackTrace(); return false; }
+	    return addAdminNote(id, adminUser, note);
 	}
 
 	
@@ -1189,7 +1640,9 @@ public class Database {
 	        ps.setString(2, (newDescription == null ? "" : newDescription));
 	        ps.setString(3, reopeningUser);
 	        ps.setInt(4, closedRequestId);
-	        return ps.executeUpdate() == 1;
+	        int rows = ps.executeUpdate();
+	        openRequestCount.addAndGet(rows);
+	        return rows == 1;
 	    } catch (SQLException e) { e.printStackTrace(); }
 	    return false;
 	}
@@ -0,0 +1,210 @@
+package database;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*******
+ * <p> Title: UsernameTrie Class. </p>
+ *
+ * <p> Description: A compact in-memory prefix tree of every username in the user table.  The
+ * Database loads it once when it connects and keeps it current as users are registered and
+ * deleted, so checking whether a name is taken and completing a partial name as it is typed
+ * never need a round trip to H2.</p>
+ *
+ * <p> Each node keeps its children in two parallel sorted arrays (the next character and the
+ * child node) rather than in a map, which keeps the per-node cost to a few dozen bytes and lets
+ * a depth-first walk produce names in alphabetical order.  Existence checks cost one binary
+ * search per character of the name, and completion stops as soon as it has the number of names
+ * that were asked for.</p>
+ *
+ */
+public class UsernameTrie {
+
+	private static final char[] NO_KEYS = new char[0];
+	private static final Node[] NO_CHILDREN = new Node[0];
+
+	// One node of the trie; terminal is true if the path to this node spells a username
+	private static final class Node {
+		char[] keys = NO_KEYS;
+		Node[] children = NO_CHILDREN;
+		boolean terminal;
+
+		Node child(char c) {
+			int i = Arrays.binarySearch(keys, c);
+			return i < 0 ? null : children[i];
+		}
+
+		Node addChild(char c) {
+			int i = Arrays.binarySearch(keys, c);
+			if (i >= 0) return children[i];
+			int at = -i - 1;
+			char[] k = new char[keys.length + 1];
+			Node[] n = new Node[children.length + 1];
+			System.arraycopy(keys, 0, k, 0, at);
+			System.arraycopy(children, 0, n, 0, at);
+			System.arraycopy(keys, at, k, at + 1, keys.length - at);
+			System.arraycopy(children, at, n, at + 1, children.length - at);
+			k[at] = c;
+			n[at] = new Node();
+			keys = k;
+			children = n;
+			return n[at];
+		}
+
+		void removeChild(char c) {
+			int i = Arrays.binarySearch(keys, c);
+			if (i < 0) return;
+			if (keys.length == 1) {
+				keys = NO_KEYS;
+				children = NO_CHILDREN;
+				return;
+			}
+			char[] k = new char[keys.length - 1];
+			Node[] n = new Node[children.length - 1];
+			System.arraycopy(keys, 0, k, 0, i);
+			System.arraycopy(children, 0, n, 0, i);
+			System.arraycopy(keys, i + 1, k, i, keys.length - i - 1);
+			System.arraycopy(children, i + 1, n, i, children.length - i - 1);
+			keys = k;
+			children = n;
+		}
+	}
+
+	private final Node root = new Node();
+	private int size = 0;
+
+
+	/*******
+	 * <p> Method: boolean add(String userName) </p>
+	 *
+	 * <p> Description: Add a username to the trie.</p>
+	 *
+	 * @param userName is the username to add
+	 *
+	 * @return true if the username was added, false if it was null or already present
+	 */
+	public synchronized boolean add(String userName) {
+		if (userName == null) return false;
+		Node node = root;
+		for (int i = 0; i < userName.length(); i++) node = node.addChild(userName.charAt(i));
+		if (node.terminal) return false;
+		node.terminal = true;
+		size++;
+		return true;
+	}
+
+
+	/*******
+	 * <p> Method: boolean remove(String userName) </p>
+	 *
+	 * <p> Description: Remove a username from the trie, pruning any nodes that no longer lead to
+	 * a username.</p>
+	 *
+	 * @param userName is the username to remove
+	 *
+	 * @return true if the username was present and has been removed
+	 */
+	public synchronized boolean remove(String userName) {
+		if (userName == null) return false;
+		Node[] path = new Node[userName.length() + 1];
+		path[0] = root;
+		for (int i = 0; i < userName.length(); i++) {
+			path[i + 1] = path[i].child(userName.charAt(i));
+			if (path[i + 1] == null) return false;
+		}
+		Node last = path[userName.length()];
+		if (!last.terminal) return false;
+		last.terminal = false;
+		size--;
+
+		// Walk back up, removing nodes that are neither a username nor on the way to one
+		for (int i = userName.length(); i > 0; i--) {
+			Node node = path[i];
+			if (node.terminal || node.keys.length > 0) break;
+			path[i - 1].removeChild(userName.charAt(i - 1));
+		}
+		return true;
+	}
+
+
+	/*******
+	 * <p> Method: boolean contains(String userName) </p>
+	 *
+	 * <p> Description: Check whether a username is in the trie.  The cost depends only on the
+	 * length of the name, not on the number of users.</p>
+	 *
+	 * @param userName is the username to look for
+	 *
+	 * @return true if the username is present
+	 */
+	public synchronized boolean contains(String userName) {
+		Node node = find(userName);
+		return node != null && node.terminal;
+	}
+
+
+	/*******
+	 * <p> Method: List complete(String prefix, int limit) </p>
+	 *
+	 * <p> Description: Return up to limit usernames that start with the prefix, in alphabetical
+	 * order.</p>
+	 *
+	 * @param prefix is the start of the usernames wanted; null or empty matches every username
+	 *
+	 * @param limit is the largest number of usernames to return
+	 *
+	 * @return the matching usernames
+	 */
+	public synchronized List<String> complete(String prefix, int limit) {
+		List<String> out = new ArrayList<String>();
+		if (limit <= 0) return out;
+		String start = prefix == null ? "" : prefix;
+		Node node = find(start);
+		if (node != null) collect(node, new StringBuilder(start), out, limit);
+		return out;
+	}
+
+
+	/*******
+	 * <p> Method: int size() </p>
+	 *
+	 * @return the number of usernames in the trie
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+
+	/*******
+	 * <p> Method: void clear() </p>
+	 *
+	 * <p> Description: Remove every username from the trie.</p>
+	 */
+	public synchronized void clear() {
+		root.keys = NO_KEYS;
+		root.children = NO_CHILDREN;
+		root.terminal = false;
+		size = 0;
+	}
+
+
+	// Follow the characters of the string from the root; null if the path does not exist
+	private Node find(String s) {
+		if (s == null) return null;
+		Node node = root;
+		for (int i = 0; i < s.length() && node != null; i++) node = node.child(s.charAt(i));
+		return node;
+	}
+
+
+	// Depth-first, alphabetical walk that stops once the output list is full
+	private static void collect(Node node, StringBuilder name, List<String> out, int limit) {
+		if (node.terminal) out.add(name.toString());
+		for (int i = 0; i < node.keys.length && out.size() < limit; i++) {
+			name.append(node.keys[i]);
+			collect(node.children[i], name, out, limit);
+			name.setLength(name.length() - 1);
+		}
+	}
+}
@@ -15,8 +15,8 @@ import java.util.Objects;
  * <ul>
  *   <li><b>Create</b>: create a post in a thread (required fields + validation).</li>
  *   <li><b>Read</b>: getters expose display data; {@link #getContent()} masks deleted posts.</li>
- *   <li><b>Update</b>: edit content ({@link #withContent(String)}) with audit, and moderation state
- *       ({@link #withModeration(Moderation)}).</li>
+ *   <li><b>Update</b>: edit content ({@link #withContent(String)}) with audit, moderation state
+ *       ({@link #withModeration(Moderation)}), and thread moves ({@link #withThread(String)}).</li>
  *   <li><b>Delete</b>: soft delete ({@link #softDeleted()}) so replies remain; UI shows "[deleted]".</li>
  * </ul>
  *
@@ -30,6 +30,8 @@ import java.util.Objects;
  *   <li><b>editedAt</b>: last edit timestamp (null until edited).</li>
  *   <li><b>deleted</b>: soft delete flag (per student story: replies persist; viewers see "[deleted]").</li>
  *   <li><b>moderation</b>: status to support staff epics (FLAGGED/HIDDEN) in TP3.</li>
+ *   <li><b>folded author/thread/content</b>: case-folded search forms ({@link #fold(String)}),
+ *       computed when the text is set and carried over by copies that keep it.</li>
  * </ul>
  *
  * <h3>Validation Policy</h3>
@@ -48,6 +50,12 @@ import java.util.Objects;
  *   <li>Soft delete: {@link #getContent()} returns "[deleted]" when {@code deleted==true},
  *       while {@link #getRawContent()} exposes the original text for staff/search/testing.</li>
  *   <li>Moderation: {@link Moderation} is a forward-looking hook for TP3 staff workflows.</li>
+ *   <li>Search keys: {@link #containsFolded(String)} and {@link #getFoldedThread()} compare a
+ *       query folded once per search against the cached forms, so a search allocates nothing
+ *       per post, except for content held by a {@link Body} that has no folded form at hand
+ *       (see {@link Body#peekFolded()}).</li>
+ *   <li>Bodies: a storage engine may keep the content elsewhere, e.g. compressed, through
+ *       {@link #withBody(Body)}; the getters read through the {@link Body} transparently.</li>
  * </ul>
  *
  * <p><b>Story tags (inline in code)</b></p>
@@ -79,18 +87,42 @@ public final class Post {
         HIDDEN
     }
 
+    /**
+     * Content held outside the post by a storage engine, e.g. compressed
+     * while nobody reads it. Must always return the same text.
+     */
+    public interface Body {
+        /** The content, counted as a read (e.g. for recency). */
+        String text();
+
+        /** The content for a scan such as a search; by default {@link #text()}. */
+        default String peek() { return text(); }
+
+        /**
+         * {@link #fold(String)} of the content for a search. Folds on every
+         * call by default; an engine may keep the folded form of the bodies
+         * it reads often.
+         */
+        default String peekFolded() { return fold(peek()); }
+    }
+
     // --- Core identity & authorship ---
     private final int id;
     private final String author;
     private final String thread;
 
     // --- Text & audit fields ---
-    private final String content;           // original text; never mutated
+    private final Object content;           // original text, or a Body holding it; never mutated
     private final LocalDateTime createdAt;  // immutable creation time
     private final LocalDateTime editedAt;   // null until edited
     private final boolean deleted;          // soft-delete flag
     private final Moderation moderation;    // moderation state (default NORMAL)
 
+    // --- Case-folded search forms (see fold) ---
+    private final String foldedAuthor;
+    private final String foldedThread;
+    private final String foldedContent;     // null while the content is a Body
+
     // ========================================================================
     // Factory & "mutators" (return new instances) ——— CRUD
     // ========================================================================
@@ -116,7 +148,8 @@ public final class Post {
                 LocalDateTime.now(),
                 /* deleted */ false,
                 /* editedAt */ null,
-                /* moderation */ Moderation.NORMAL
+                /* moderation */ Moderation.NORMAL,
+                /* basis */ null
         );
     }
 
@@ -135,7 +168,7 @@ public final class Post {
                 id, author, thread, newContent.trim(),
                 createdAt, deleted,
                 /* editedAt */ LocalDateTime.now(),
-                moderation
+                moderation, this
         );
     }
 
@@ -149,7 +182,24 @@ public final class Post {
         return new Post(
                 id, author, thread, content,
                 createdAt, /* deleted */ true,
-                editedAt, moderation
+                editedAt, moderation, this
+        );
+    }
+
+    /**
+     * Returns a copy moved to another thread (keeps content and audit fields).
+     * <p>Used by staff to move a post that was filed in the wrong thread.</p>
+     *
+     * @param newThread destination thread name (required, non-blank)
+     * @return new Post in the given thread
+     * @throws IllegalArgumentException if the thread name is blank
+     */
+    public Post withThread(String newThread) {
+        if (newThread == null || newThread.isBlank())
+            throw new IllegalArgumentException("thread is required");
+        return new Post(
+                id, author, newThread.trim(), content,
+                createdAt, deleted, editedAt, moderation, this
         );
     }
 
@@ -164,10 +214,72 @@ public final class Post {
         return new Post(
                 id, author, thread, content,
                 createdAt, deleted, editedAt,
-                (m == null ? moderation : m)
+                (m == null ? moderation : m), this
+        );
+    }
+
+    /**
+     * Returns the same post with its content held by {@code body}, which must
+     * hold exactly {@link #getRawContent()}. Used by storage engines that keep
+     * rarely read text compactly; nothing else about the post changes.
+     *
+     * @param body holder of this post's content
+     * @return new Post reading its content through {@code body}
+     */
+    public Post withBody(Body body) {
+        return new Post(
+                id, author, thread, Objects.requireNonNull(body, "body"),
+                createdAt, deleted, editedAt, moderation, this
         );
     }
 
+    /**
+     * Rebuilds a post from fields that were stored earlier, e.g. by a storage
+     * engine that keeps posts in columns rather than as objects. Nothing is
+     * stamped or validated again: the fields come from a Post that already
+     * passed {@link #createNew}.
+     *
+     * @param id         unique id
+     * @param author     author username
+     * @param thread     thread name
+     * @param content    original post text
+     * @param createdAt  creation time
+     * @param editedAt   last edit time, or {@code null}
+     * @param deleted    soft-delete flag
+     * @param moderation moderation state ({@code null} means NORMAL)
+     * @return the post with exactly these fields
+     */
+    public static Post restore(int id, String author, String thread, String content,
+                               LocalDateTime createdAt, LocalDateTime editedAt,
+                               boolean deleted, Moderation moderation) {
+        return new Post(id, author, thread, content, createdAt, deleted, editedAt, moderation, null);
+    }
+
+    /**
+     * Case-folds text for searching: every character is mapped the way
+     * {@link String#equalsIgnoreCase(String)} compares it, independent of the
+     * default locale. Text that is already folded is returned as is, so
+     * folding a lower-case username or thread name allocates nothing.
+     *
+     * @param text text to fold (may be null)
+     * @return the folded text, or {@code null} for {@code null}
+     */
+    public static String fold(String text) {
+        if (text == null) return null;
+        int i = 0;
+        while (i < text.length() && foldChar(text.charAt(i)) == text.charAt(i)) i++;
+        if (i == text.length()) return text;
+
+        char[] out = text.toCharArray();
+        for (; i < out.length; i++) out[i] = foldChar(out[i]);
+        return new String(out);
+    }
+
+    private static char foldChar(char c) {
+        if (c < 128) return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
     // Validation (shared by create and update)
     private static void validate(String author, String thread, String content) {
         if (author == null || author.isBlank())
@@ -194,11 +306,12 @@ public final class Post {
             int id,
             String author,
             String thread,
-            String content,
+            Object content,
             LocalDateTime createdAt,
             boolean deleted,
             LocalDateTime editedAt,
-            Moderation moderation
+            Moderation moderation,
+            Post basis
     ) {
         this.id = id;
         this.author = author;
@@ -208,6 +321,12 @@ public final class Post {
         this.deleted = deleted;
         this.editedAt = editedAt;
         this.moderation = (moderation == null ? Moderation.NORMAL : moderation);
+
+        // Fold only the text that changed; copies share the rest with their basis.
+        this.foldedAuthor  = (basis != null && basis.author == author)   ? basis.foldedAuthor  : fold(author);
+        this.foldedThread  = (basis != null && basis.thread == thread)   ? basis.foldedThread  : fold(thread);
+        this.foldedContent = (basis != null && basis.content == content) ? basis.foldedContent
+                : (content instanceof String) ? fold((String) content) : null;
     }
 
     // ========================================================================
@@ -231,14 +350,32 @@ public final class Post {
      * <p>US-STUDENT-DELETE-POST: UI should render this value.</p>
      * @return original content or {@code "[deleted]"} if soft-deleted.
      */
-    public String getContent() { return deleted ? "[deleted]" : content; }
+    public String getContent() { return deleted ? "[deleted]" : getRawContent(); }
 
     /** 
      * Gets the original (unmasked) content. Useful for search, staff views, and tests.
      * <p>US-STUDENT-SEARCH</p>
      * @return the original (non-tombstoned) content string.
      */
-    public String getRawContent() { return content; }
+    public String getRawContent() {
+        return (content instanceof Body) ? ((Body) content).text() : (String) content;
+    }
+
+    /**
+     * Whether this post reads its content through {@code body}.
+     * @param body a body handed out by a storage engine
+     * @return whether it is this post's body
+     */
+    public boolean isBackedBy(Body body) { return content == body; }
+
+    /**
+     * Whether both posts hold the very same content, as copies made by the
+     * {@code with...} methods that leave the text alone do. Cheap: it never
+     * reads the text.
+     * @param other another post (may be null)
+     * @return whether the content is shared
+     */
+    public boolean sharesContentWith(Post other) { return other != null && content == other.content; }
 
     /** Gets the immutable creation timestamp. 
      *  @return creation timestamp (immutable). */
@@ -256,6 +393,29 @@ public final class Post {
      *  @return moderation status for staff workflows. */
     public Moderation getModeration() { return moderation; }
 
+    /** Gets the case-folded thread name, for case-insensitive thread matching.
+     *  @return {@link #fold(String)} of the thread name. */
+    public String getFoldedThread() { return foldedThread; }
+
+    /** Gets the case-folded author name, for case-insensitive author lookups.
+     *  @return {@link #fold(String)} of the author name. */
+    public String getFoldedAuthor() { return foldedAuthor; }
+
+    /**
+     * Checks whether the author, thread or original content contains the query,
+     * ignoring case. Compares cached folded forms, so it allocates nothing
+     * unless the content is held by a {@link Body} without a folded form at
+     * hand ({@link Body#peekFolded()}).
+     * <p>US-STUDENT-SEARCH</p>
+     * @param foldedQuery query already passed through {@link #fold(String)}
+     * @return whether any of the three fields contains it
+     */
+    public boolean containsFolded(String foldedQuery) {
+        return foldedAuthor.contains(foldedQuery)
+                || foldedThread.contains(foldedQuery)
+                || (foldedContent != null ? foldedContent : ((Body) content).peekFolded()).contains(foldedQuery);
+    }
+
     // Equality/Hashing/Debugging
 
     /** Identity-based equality (id only). */
@@ -0,0 +1,25 @@
+package entityClasses;
+
+import java.util.List;
+
+/*******
+ * <p> Title: UserDirectoryPage Class. </p>
+ * 
+ * <p> Description: One page of the user directory.  The rows are in username order, and the
+ * cursor is the username to pass back to fetch the next page, or null if this is the last
+ * page.</p>
+ * 
+ */
+public class UserDirectoryPage {
+	private final List<UserSummary> users;
+	private final String nextCursor;
+
+	public UserDirectoryPage(List<UserSummary> users, String nextCursor) {
+		this.users = users;
+		this.nextCursor = nextCursor;
+	}
+
+	public List<UserSummary> getUsers() { return users; }
+	public String getNextCursor() { return nextCursor; }
+	public boolean hasMore() { return nextCursor != null; }
+}
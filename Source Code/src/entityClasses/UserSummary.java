@@ -0,0 +1,57 @@
+package entityClasses;
+
+/*******
+ * <p> Title: UserSummary Class. </p>
+ * 
+ * <p> Description: A lightweight, read-only row describing one user: the username, the name,
+ * the three role flags and, for the admin user report, the email address.  The user directory
+ * and the report return these instead of full User objects so admin pages can list many
+ * accounts without loading passwords and every other attribute.</p>
+ * 
+ */
+public class UserSummary {
+	private final String userName;
+	private final String firstName;
+	private final String lastName;
+	private final String emailAddress;
+	private final boolean adminRole;
+	private final boolean newRole1;
+	private final boolean newRole2;
+
+	public UserSummary(String userName, String firstName, String lastName, boolean adminRole,
+			boolean newRole1, boolean newRole2) {
+		this(userName, firstName, lastName, null, adminRole, newRole1, newRole2);
+	}
+
+	public UserSummary(String userName, String firstName, String lastName, String emailAddress,
+			boolean adminRole, boolean newRole1, boolean newRole2) {
+		this.userName = userName;
+		this.firstName = firstName;
+		this.lastName = lastName;
+		this.emailAddress = emailAddress;
+		this.adminRole = adminRole;
+		this.newRole1 = newRole1;
+		this.newRole2 = newRole2;
+	}
+
+	public String getUserName() { return userName; }
+	public String getFirstName() { return firstName; }
+	public String getLastName() { return lastName; }
+	public String getEmailAddress() { return emailAddress; }
+	public boolean getAdminRole() { return adminRole; }
+	public boolean getNewRole1() { return newRole1; }
+	public boolean getNewRole2() { return newRole2; }
+
+	/**
+	 * @return the first and last name separated by a space, with missing parts left out
+	 */
+	public String getName() {
+		return ((firstName == null ? "" : firstName) + " " + (lastName == null ? "" : lastName))
+				.trim();
+	}
+
+	@Override
+	public String toString() {
+		return userName;
+	}
+}
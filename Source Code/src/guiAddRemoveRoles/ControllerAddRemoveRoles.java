@@ -1,6 +1,12 @@
 package guiAddRemoveRoles;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import database.Database;
+import entityClasses.UserDirectoryPage;
+import entityClasses.UserSummary;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.geometry.Pos;
 import javafx.scene.control.ComboBox;
@@ -19,6 +25,14 @@ public class ControllerAddRemoveRoles {
 
 	// Reference for the in-memory database so this package has access
 	private static Database theDatabase = applicationMain.FoundationsMain.database;		
+	
+	// The ComboBox entry that loads the next page of the user directory when it is chosen
+	protected static final String MORE_USERS = "<More users...>";
+	
+	// The filter the ComboBox was loaded with, and the cursor of the next directory page for it
+	// (null when the last page has been loaded)
+	private static String userFilter = "";
+	private static String nextUserCursor = null;
 
 	
 	/**********
@@ -30,6 +44,11 @@ public class ControllerAddRemoveRoles {
 	 * 
 	 */
 	protected static void doSelectUser() {
+		if (MORE_USERS.equals(ViewAddRemoveRoles.combobox_SelectUser.getValue())) {
+			// Change the items once the selection change has finished, not inside it
+			Platform.runLater(() -> loadMoreUserChoices());
+			return;
+		}
 		ViewAddRemoveRoles.theSelectedUser = 
 				(String) ViewAddRemoveRoles.combobox_SelectUser.getValue();
 		theDatabase.getUserAccountDetails(ViewAddRemoveRoles.theSelectedUser);
@@ -37,6 +56,62 @@ public class ControllerAddRemoveRoles {
 	}
 	
 	
+	/**********
+	 * <p> Method: loadUserChoices(String prefix) </p>
+	 * 
+	 * <p> Description: This method fills the select-user ComboBox with the first page of the user
+	 * directory whose usernames start with the given prefix.  Only one page is loaded at a time,
+	 * so the page stays responsive no matter how many accounts exist; the admin narrows the list
+	 * by typing more of the username, or picks the last entry to load the next page. </p>
+	 * 
+	 * @param prefix	the start of the usernames to list, or empty for all users
+	 */
+	protected static void loadUserChoices(String prefix) {
+		userFilter = prefix;
+		nextUserCursor = null;
+		List<String> userList = new ArrayList<String>();
+		userList.add("<Select a User>");
+		addUserPage(userList);
+		ViewAddRemoveRoles.combobox_SelectUser.setItems(FXCollections.observableArrayList(userList));
+		ViewAddRemoveRoles.combobox_SelectUser.getSelectionModel().select(0);
+	}
+	
+	
+	/**********
+	 * <p> Method: loadMoreUserChoices() </p>
+	 * 
+	 * <p> Description: This method appends the next page of the user directory to the
+	 * select-user ComboBox, continuing from the cursor of the page before it. </p>
+	 */
+	private static void loadMoreUserChoices() {
+		List<String> userList = new ArrayList<String>(
+				ViewAddRemoveRoles.combobox_SelectUser.getItems());
+		userList.remove(MORE_USERS);
+		addUserPage(userList);
+		ViewAddRemoveRoles.combobox_SelectUser.setItems(FXCollections.observableArrayList(userList));
+		ViewAddRemoveRoles.combobox_SelectUser.getSelectionModel().select(0);
+		ViewAddRemoveRoles.combobox_SelectUser.show();
+	}
+	
+	
+	/**********
+	 * <p> Method: addUserPage(List userList) </p>
+	 * 
+	 * <p> Description: This method reads the next page of the user directory for the current
+	 * filter, adds its usernames to the list, and ends the list with the entry that loads the
+	 * page after it, if there is one. </p>
+	 * 
+	 * @param userList	the ComboBox entries to add to
+	 */
+	private static void addUserPage(List<String> userList) {
+		UserDirectoryPage page = theDatabase.getUserDirectoryPage(userFilter, nextUserCursor,
+				ViewAddRemoveRoles.USER_PAGE_SIZE);
+		for (UserSummary user : page.getUsers()) userList.add(user.getUserName());
+		nextUserCursor = page.getNextCursor();
+		if (page.hasMore()) userList.add(MORE_USERS);
+	}
+	
+	
 	/**********
 	 * <p> Method: repaintTheWindow() </p>
 	 * 
@@ -55,6 +130,7 @@ public class ControllerAddRemoveRoles {
 					ViewAddRemoveRoles.label_PageTitle, ViewAddRemoveRoles.label_UserDetails, 
 					ViewAddRemoveRoles.button_UpdateThisUser, ViewAddRemoveRoles.line_Separator1,
 					ViewAddRemoveRoles.label_SelectUser, ViewAddRemoveRoles.combobox_SelectUser, 
+					ViewAddRemoveRoles.text_UserFilter,
 					ViewAddRemoveRoles.line_Separator4, ViewAddRemoveRoles.button_Return,
 					ViewAddRemoveRoles.button_Logout, ViewAddRemoveRoles.button_Quit);
 		}
@@ -65,6 +141,7 @@ public class ControllerAddRemoveRoles {
 					ViewAddRemoveRoles.button_UpdateThisUser, ViewAddRemoveRoles.line_Separator1,
 					ViewAddRemoveRoles.label_SelectUser,
 					ViewAddRemoveRoles.combobox_SelectUser, 
+					ViewAddRemoveRoles.text_UserFilter,
 					ViewAddRemoveRoles.label_CurrentRoles,
 					ViewAddRemoveRoles.label_SelectRoleToBeAdded,
 					ViewAddRemoveRoles.combobox_SelectRoleToAdd,
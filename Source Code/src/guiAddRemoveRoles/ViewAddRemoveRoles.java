@@ -3,12 +3,12 @@ package guiAddRemoveRoles;
 import java.util.ArrayList;
 import java.util.List;
 import javafx.beans.value.ObservableValue;
-import javafx.collections.FXCollections;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
 import javafx.scene.layout.Pane;
 import javafx.scene.shape.Line;
 import javafx.scene.text.Font;
@@ -62,6 +62,12 @@ public class ViewAddRemoveRoles {
 	// not need to push a button to make this happen.
 	protected static Label label_SelectUser = new Label("Select a user to be updated:");
 	protected static ComboBox <String> combobox_SelectUser = new ComboBox <String>();
+	protected static TextField text_UserFilter = new TextField();
+	
+	// The ComboBox holds the user directory one page at a time.  With many accounts, the admin
+	// types the start of a username into the filter to narrow the list, or picks the last entry
+	// to load the next page.
+	protected static final int USER_PAGE_SIZE = 200;
 	
 	// Area 2b: When a user has been selected these widgets are shown and can be used
 	protected static List<String> addList = new ArrayList<String>();
@@ -187,13 +193,19 @@ public class ViewAddRemoveRoles {
 		setupLabelUI(label_SelectUser, "Arial", 20, 300, Pos.BASELINE_LEFT, 20, 130);
 		
 		setupComboBoxUI(combobox_SelectUser, "Dialog", 16, 250, 280, 125);
-		List<String> userList = theDatabase.getUserList();	
-		combobox_SelectUser.setItems(FXCollections.observableArrayList(userList));
-		combobox_SelectUser.getSelectionModel().select(0);
+		ControllerAddRemoveRoles.loadUserChoices("");
 		combobox_SelectUser.getSelectionModel().selectedItemProperty()
     	.addListener((ObservableValue<? extends String> observable, 
     		String oldvalue, String newValue) -> {ControllerAddRemoveRoles.doSelectUser();});
 		
+		text_UserFilter.setPromptText("Filter by username");
+		text_UserFilter.setFont(Font.font("Dialog", 16));
+		text_UserFilter.setMaxWidth(220);
+		text_UserFilter.setLayoutX(550);
+		text_UserFilter.setLayoutY(125);
+		text_UserFilter.textProperty().addListener((observable, oldValue, newValue) ->
+			{ControllerAddRemoveRoles.loadUserChoices(newValue);});
+		
 		// GUI Area 2b
 		setupLabelUI(label_CurrentRoles, "Arial", 16, 300, Pos.BASELINE_LEFT, 50, 170);	
 		setupLabelUI(label_SelectRoleToBeAdded, "Arial", 20, 300, Pos.BASELINE_LEFT, 20, 210);
@@ -175,51 +175,37 @@ public class ControllerAdminHome {
 	 * 
 	 * Title: listUsers () Method. </p>
 	 * 
-	 * <p> Description: Protected method that is currently a stub informing the user that
-	 * this function has not yet been implemented. </p>
+	 * <p> Description: Protected method that shows every user's username, name, email address,
+	 * and roles.  The rows come from a single streaming query rather than one lookup per user.
+	 * </p>
 	 */
 	protected static void listUsers() {
 	    try {
-	        var names = theDatabase.getUserList();
-	        if (names == null || names.isEmpty()) {
+	        // One query streams every row the report needs straight into the builder
+	        UserReportBuilder report = new UserReportBuilder();
+	        int rows = theDatabase.forEachUserReportRow(report::addRow);
+	        if (rows < 0) {
+	            // The query failed part way, so whatever rows arrived are not the whole list
+	            ViewAdminHome.alertNotImplemented.setTitle("All Users");
+	            ViewAdminHome.alertNotImplemented.setHeaderText("Error");
+	            ViewAdminHome.alertNotImplemented.setContentText("The user list could not be loaded.");
+	            ViewAdminHome.alertNotImplemented.showAndWait();
+	            return;
+	        }
+	        if (rows == 0) {
 	            ViewAdminHome.alertNotImplemented.setTitle("All Users");
 	            ViewAdminHome.alertNotImplemented.setHeaderText("No users found");
 	            ViewAdminHome.alertNotImplemented.setContentText("The user table appears to be empty.");
 	            ViewAdminHome.alertNotImplemented.showAndWait();
 	            return;
 	        }
-
-	        // Build a readable table
-	        StringBuilder sb = new StringBuilder();
-	        sb.append(String.format("%-16s  %-22s  %-28s  %-6s %-8s %-6s%n",
-	                "Username","Name","Email","Admin","Student","Staff"));
-	        sb.append("------------------------------------------------------------------------------------------\n");
-
-	        // Skip the first "<Select a User>" entry if present
-	        for (String uname : names) {
-	            if (uname == null || uname.startsWith("<")) continue;
-
-	            boolean ok = theDatabase.getUserAccountDetails(uname);
-	            if (!ok) continue;
-
-	            String first = theDatabase.getCurrentFirstName();
-	            String last  = theDatabase.getCurrentLastName();
-	            String email = theDatabase.getCurrentEmailAddress();
-	            boolean a = theDatabase.getCurrentAdminRole();
-	            boolean r1 = theDatabase.getCurrentNewRole1(); // Student
-	            boolean r2 = theDatabase.getCurrentNewRole2(); // Staff
-
-	            String full = ((first == null ? "" : first) + " " + (last == null ? "" : last)).trim();
-	            sb.append(String.format("%-16s  %-22s  %-28s  %-6s %-8s %-6s%n",
-	                    uname, full, (email == null ? "" : email),
-	                    a ? "Y" : " ", r1 ? "Y" : " ", r2 ? "Y" : " "));
-	        }
+	        String text = report.build();
 
 	        var a = new javafx.scene.control.Alert(javafx.scene.control.Alert.AlertType.INFORMATION);
 	        a.setTitle("All Users");
 	        a.setHeaderText("Username / Name / Email / Roles (Admin, Student, Staff)");
-	        a.setContentText(sb.toString());
-	        var ta = new javafx.scene.control.TextArea(sb.toString());
+	        a.setContentText(text);
+	        var ta = new javafx.scene.control.TextArea(text);
 	        ta.setEditable(false);
 	        a.getDialogPane().setExpandableContent(ta);
 	        a.getDialogPane().setExpanded(true);
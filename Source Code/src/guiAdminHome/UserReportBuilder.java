@@ -0,0 +1,63 @@
+package guiAdminHome;
+
+import entityClasses.UserSummary;
+
+/*******
+ * <p> Title: UserReportBuilder Class. </p>
+ * 
+ * <p> Description: Formats the admin "List Users" report one row at a time.  The rows are fed
+ * straight from Database.forEachUserReportRow, so the report is built in a single pass over a
+ * single query instead of looking up each user's details separately.</p>
+ * 
+ */
+public class UserReportBuilder {
+
+	// Column layout shared by the header and every row
+	private static final String ROW_FORMAT = "%-16s  %-22s  %-28s  %-6s %-8s %-6s%n";
+	private static final String SEPARATOR =
+		"------------------------------------------------------------------------------------------\n";
+
+	private final StringBuilder sb = new StringBuilder();
+	private int rows = 0;
+
+	/**********
+	 * <p> Method: UserReportBuilder() </p>
+	 * 
+	 * <p> Description: Start a new report with its column headings.</p>
+	 */
+	public UserReportBuilder() {
+		sb.append(String.format(ROW_FORMAT, "Username", "Name", "Email", "Admin", "Student",
+				"Staff"));
+		sb.append(SEPARATOR);
+	}
+
+	/**********
+	 * <p> Method: void addRow(UserSummary user) </p>
+	 * 
+	 * <p> Description: Append one user to the report.</p>
+	 * 
+	 * @param user	the user to add
+	 */
+	public void addRow(UserSummary user) {
+		if (user == null || user.getUserName() == null) return;
+		String email = user.getEmailAddress();
+		sb.append(String.format(ROW_FORMAT, user.getUserName(), user.getName(),
+				(email == null ? "" : email), user.getAdminRole() ? "Y" : " ",
+				user.getNewRole1() ? "Y" : " ", user.getNewRole2() ? "Y" : " "));
+		rows++;
+	}
+
+	/**********
+	 * <p> Method: int getRowCount() </p>
+	 * 
+	 * @return the number of users added to the report so far
+	 */
+	public int getRowCount() { return rows; }
+
+	/**********
+	 * <p> Method: String build() </p>
+	 * 
+	 * @return the formatted report
+	 */
+	public String build() { return sb.toString(); }
+}
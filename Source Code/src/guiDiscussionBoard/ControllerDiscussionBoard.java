@@ -5,6 +5,7 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 
 import applicationMain.FoundationsMain;
+import entityClasses.Post;
 import guiUserLogin.ViewUserLogin; // if you need it later
 import javafx.collections.FXCollections;
 import javafx.scene.control.Alert;
@@ -23,6 +24,13 @@ import guiStudentBoard.controllerStudentBoard;
  */
 public class ControllerDiscussionBoard {
 
+    // Posts are loaded one page at a time; the last row offers the next page
+    private static final int PAGE_SIZE = 50;
+    static final String LOAD_MORE = "Load more posts…";
+
+    private static String openThreadName;     // thread whose posts are showing
+    private static Integer lastShownPostId;   // cursor for the next page
+
     // --- simple popup ---
     private static void info(String title, String msg){
         Alert a = new Alert(AlertType.INFORMATION);
@@ -39,18 +47,37 @@ public class ControllerDiscussionBoard {
             return;
         }
 
+        openThreadName = threadName;
+        lastShownPostId = null;
+
+        // Update the view
+        ViewDiscussionBoard.showThread(threadName);
+        ViewDiscussionBoard.updatePosts(nextPage());
+    }
+
+    // --- Replace the "load more" row with the next page of the open thread ---
+    protected static void loadMorePosts(){
+        if (openThreadName == null || lastShownPostId == null) return;
+        ViewDiscussionBoard.appendPosts(nextPage());
+    }
+
+    // --- Fetch the page after lastShownPostId and format it for the list ---
+    private static List<String> nextPage(){
         // ✅ Build a controller using the shared services (no global controller)
         controllerStudentBoard svc =
             new controllerStudentBoard(FoundationsMain.threadService, FoundationsMain.postRepo);
 
-        List<String> items = svc.searchPosts("", threadName).stream()
+        // Staff see the posts they have hidden, as they did before paging
+        List<Post> page = svc.searchPostsPage("", openThreadName, lastShownPostId, PAGE_SIZE, true, false);
+        List<String> items = page.stream()
             .map(p -> "#" + p.getId() + " • " + p.getAuthor() + " — " +
                        (p.getContent().length() > 60 ? p.getContent().substring(0, 60) + "…" : p.getContent()))
             .collect(Collectors.toList());
 
-        // Update the view
-        ViewDiscussionBoard.showThread(threadName);
-        ViewDiscussionBoard.updatePosts(items);
+        lastShownPostId = page.isEmpty() ? null : page.get(page.size() - 1).getId();
+        if (page.size() == PAGE_SIZE) items.add(LOAD_MORE);
+        else lastShownPostId = null;
+        return items;
     }
 
     // --- Create a new thread via ThreadService; refresh the list view ---
@@ -109,7 +136,9 @@ public class ControllerDiscussionBoard {
         controllerStudentBoard svc =
             new controllerStudentBoard(FoundationsMain.threadService, FoundationsMain.postRepo);
 
-        var postsInThread = svc.searchPosts("", threadName);
+        // One post is enough to know the thread is not empty; hidden and
+        // deleted posts still belong to it, so they count too
+        var postsInThread = svc.searchPostsPage("", threadName, null, 1, true, true);
         if (!postsInThread.isEmpty()) {
             info("Delete Thread", "Cannot delete a thread that still has posts.");
             return;
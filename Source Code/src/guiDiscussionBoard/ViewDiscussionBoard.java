@@ -171,6 +171,11 @@ public class ViewDiscussionBoard {
 		        list_Posts.setLayoutX(220);
 		        list_Posts.setLayoutY(140);
 		        list_Posts.setPrefSize(530, 330);
+		        // Selecting the "load more" row at the end of the list fetches the next page
+		        list_Posts.getSelectionModel().selectedItemProperty().addListener((obs, oldItem, newItem) -> {
+		            if (ControllerDiscussionBoard.LOAD_MORE.equals(newItem))
+		                javafx.application.Platform.runLater(ControllerDiscussionBoard::loadMorePosts);
+		        });
 		        
 		        
 	        // The buttons
@@ -275,5 +280,11 @@ public class ViewDiscussionBoard {
 	    protected static void updatePosts(java.util.List<String> items) {
 	        list_Posts.getItems().setAll(items);
 	    }
+
+	    // Swap the trailing "load more" row for the next page of posts
+	    protected static void appendPosts(java.util.List<String> items) {
+	        list_Posts.getItems().remove(ControllerDiscussionBoard.LOAD_MORE);
+	        list_Posts.getItems().addAll(items);
+	    }
 	
 }
\ No newline at end of file
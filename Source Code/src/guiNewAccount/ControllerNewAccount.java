@@ -48,6 +48,12 @@ public class ControllerNewAccount {
 		int roleCode = 0;
 		User user = null;
 
+		// Make sure the username is not already taken; register would otherwise fail
+		if (theDatabase.doesUserExist(username)) {
+			ViewNewAccount.label_NewUserLine.setText("That username is already taken.");
+			return;
+		}
+
 		// Make sure the two passwords are the same.	
 		if (ViewNewAccount.text_Password1.getText().
 				compareTo(ViewNewAccount.text_Password2.getText()) == 0) {
@@ -105,6 +111,23 @@ public class ControllerNewAccount {
 	}
 
 	
+	/**********
+	 * <p> Method: checkUsernameAvailable(String username) </p>
+	 * 
+	 * <p> Description: This method is called each time the username field changes.  It tells
+	 * the user right away if the name is already taken.  The check is answered by the database's
+	 * in-memory username trie, so it does not query the database on every keystroke.
+	 * 
+	 * @param username	the text currently in the username field
+	 */	
+	protected static void checkUsernameAvailable(String username) {
+		if (username != null && !username.isEmpty() && theDatabase.doesUserExist(username))
+			ViewNewAccount.label_NewUserLine.setText("That username is already taken.");
+		else
+			ViewNewAccount.label_NewUserLine.setText("Please enter a username and a password.");
+	}
+
+	
 	/**********
 	 * <p> Method: public performQuit() </p>
 	 * 
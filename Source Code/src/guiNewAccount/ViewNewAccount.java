@@ -172,6 +172,8 @@ public class ViewNewAccount {
 		// Establish the text input operand asking for a username
 		setupTextUI(text_Username, "Arial", 18, 300, Pos.BASELINE_LEFT, 50, 160, true);
 		text_Username.setPromptText("Enter the Username");
+		text_Username.textProperty().addListener((observable, oldValue, newValue) -> 
+			{ControllerNewAccount.checkUsernameAvailable(newValue); });
 		
 		// Establish the text input operand field for the password
 		setupTextUI(text_Password1, "Arial", 18, 300, Pos.BASELINE_LEFT, 50, 210, true);
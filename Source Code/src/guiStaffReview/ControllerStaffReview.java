@@ -141,8 +141,9 @@ class ControllerStaffReview {
             return;
         }
 
-        // Load posts in this thread. Empty keyword means "show all".
-        var posts = FXCollections.observableArrayList(sr.searchPosts("", thread));
+        // Load posts in this thread. Empty keyword means "show all"; staff
+        // also see posts they have hidden.
+        var posts = FXCollections.observableArrayList(sr.searchPosts("", thread, true));
         postsLV.setItems(posts);
 
         // Clear the other panels until a post is selected.
@@ -151,6 +152,37 @@ class ControllerStaffReview {
         detailsTA.clear();
     }
 
+    /**
+     * Runs a structured staff query (see {@link studentPosts.PostQuery}) across all
+     * threads and shows the matches in the post list. A blank query goes back to the
+     * selected thread; a malformed one is explained in the details area.
+     */
+    static void runQuery(
+            controllerStudentBoard sr,
+            String query,
+            String selectedThread,
+            ListView<Post> postsLV,
+            ListView<Reply> repliesLV,
+            ListView<Feedback> fbLV,
+            TextArea detailsTA
+    ) {
+        if (query == null || query.isBlank()) {
+            loadPostsForThread(sr, selectedThread, postsLV, repliesLV, fbLV, detailsTA);
+            return;
+        }
+
+        try {
+            postsLV.setItems(FXCollections.observableArrayList(sr.findPosts(query)));
+        } catch (IllegalArgumentException ex) {
+            detailsTA.setText("Query error: " + ex.getMessage());
+            return;
+        }
+
+        repliesLV.setItems(FXCollections.observableArrayList());
+        fbLV.setItems(FXCollections.observableArrayList());
+        detailsTA.clear();
+    }
+
     /**
      * Loads all replies for a selected post so staff can read the full thread.
      */
@@ -53,6 +53,7 @@ public class ViewStaffReview {
     /** Posts list. */
     public static final Label postsL = new Label("Posts");
     public static final ListView<Post> postsLV = new ListView<>();
+    public static final TextField queryTF = new TextField();
 
     /** Replies list. */
     public static final Label repliesL = new Label("Replies");
@@ -149,6 +150,17 @@ public class ViewStaffReview {
         postsLV.setLayoutY(140);
         postsLV.setPrefSize(330, 360);
 
+        // Structured query over every thread, e.g. author:alice moderation:FLAGGED
+        queryTF.setPromptText("author:x thread:y moderation:FLAGGED after:2025-10-01");
+        queryTF.setLayoutX(210);
+        queryTF.setLayoutY(107);
+        queryTF.setPrefWidth(270);
+        queryTF.setOnAction(e ->
+                ControllerStaffReview.runQuery(SR, queryTF.getText(),
+                        threadsLV.getSelectionModel().getSelectedItem(),
+                        postsLV, repliesLV, fbLV, detailsTA)
+        );
+
         // Replies column.
         setupLabel(repliesL, "Arial", 18, 200, Pos.BASELINE_LEFT, 500, 110);
         repliesLV.setLayoutX(500);
@@ -214,7 +226,7 @@ public class ViewStaffReview {
         root.getChildren().addAll(
                 title, who, acct, sep1,
                 threadsL, threadsLV,
-                postsL, postsLV,
+                postsL, postsLV, queryTF,
                 repliesL, repliesLV,
                 fbL, fbLV, addFbBtn,
                 sep4, back, logout, quit
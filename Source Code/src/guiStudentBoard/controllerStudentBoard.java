@@ -4,11 +4,13 @@ import entityClasses.Post;
 import entityClasses.Post.Moderation;
 import review.ReviewService.Parameter;
 import services.ThreadService;
-import studentPosts.InMemoryPostRepository;
+import studentPosts.EditHistory;
+import studentPosts.PostRepository;
 import studentPosts.SearchSpec;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -16,7 +18,7 @@ import java.util.stream.Collectors;
  * Combines logic from both versions of controllerStudentBoard.
  *
  * Uses:
- *   ✓ Immutable entityClasses.Post + InMemoryPostRepository
+ *   ✓ Immutable entityClasses.Post + PostRepository (InMemoryPostRepository)
  *   ✓ Replies stored separately (correct model)
  *   ✓ Reasonable answer checking
  *   ✓ Help-peers dashboard logic
@@ -34,11 +36,10 @@ public class controllerStudentBoard {
     private static final String DEFAULT_THREAD = "General";
 
     private final ThreadService threads;
-    private final InMemoryPostRepository repo;
+    private final PostRepository repo;
 
-    // ID sources
-    private int nextPostId = 1;
-    private int nextReplyId = 1;
+    // ID source for replies; post ids come from the shared repository
+    private final AtomicInteger nextReplyId = new AtomicInteger(1);
 
     // =====================================================================
     // ROLE-BASED ACCESS
@@ -94,20 +95,17 @@ public class controllerStudentBoard {
     }
 
     private final Map<Integer, Reply> replies = new LinkedHashMap<>();
+    /** Exact author username -> ids of their replies, oldest first; see {@link #authorKey}. */
+    private final Map<String, NavigableSet<Integer>> repliesByAuthor = new HashMap<>();
     private final Map<Integer, Set<String>> postReaders = new HashMap<>();
 
     // =====================================================================
     // CONSTRUCTOR
     // =====================================================================
 
-    public controllerStudentBoard(ThreadService threads, InMemoryPostRepository repo) {
+    public controllerStudentBoard(ThreadService threads, PostRepository repo) {
         this.threads = threads;
         this.repo = repo;
-
-        this.nextPostId = repo.findAll().stream()
-                .mapToInt(Post::getId)
-                .max()
-                .orElse(0) + 1;
     }
 
     // =====================================================================
@@ -130,25 +128,29 @@ public class controllerStudentBoard {
         String t = (thread == null || thread.isBlank()) ? DEFAULT_THREAD : thread.trim();
         if (!threads.hasThread(t)) t = DEFAULT_THREAD;
 
-        return repo.create(nextPostId++, author, t, content);
+        return repo.create(author, t, content);
     }
 
-    public boolean updatePost(int postId, String newContent) {
-        Optional<Post> opt = repo.findById(postId);
-        if (opt.isEmpty()) return false;
+    // The changes below go through the repository's own update methods,
+    // which read and replace the post under one lock, so a concurrent edit,
+    // flag or delete of the same post is never overwritten by a stale copy.
 
-        Post updated = opt.get().withContent(newContent);
-        repo.update(updated);
-        return true;
+    public boolean updatePost(int postId, String newContent) {
+        try {
+            repo.updateContent(postId, newContent);
+            return true;
+        } catch (NoSuchElementException e) {
+            return false;
+        }
     }
 
     public boolean deletePost(int postId) {
-        Optional<Post> opt = repo.findById(postId);
-        if (opt.isEmpty()) return false;
-
-        Post updated = opt.get().softDeleted();
-        repo.update(updated);
-        return true;
+        try {
+            repo.softDelete(postId);
+            return true;
+        } catch (NoSuchElementException e) {
+            return false;
+        }
     }
 
     // =====================================================================
@@ -156,31 +158,54 @@ public class controllerStudentBoard {
     // =====================================================================
 
     public void flagPost(int postId, String reason) {
-        repo.findById(postId).ifPresent(post -> {
-            Post updated = post.withModeration(Moderation.FLAGGED);
-            repo.update(updated);
+        try {
+            repo.moderate(postId, Moderation.FLAGGED);
             flagReasons.put(postId, reason == null ? "" : reason);
-        });
+        } catch (NoSuchElementException ignored) {
+            // unknown post: nothing to flag
+        }
     }
 
     public void unflagPost(int postId) {
-        repo.findById(postId).ifPresent(post -> {
-            Post updated = post.withModeration(Moderation.NORMAL);
-            repo.update(updated);
+        try {
+            repo.moderate(postId, Moderation.NORMAL);
             flagReasons.remove(postId);
-        });
+        } catch (NoSuchElementException ignored) {
+            // unknown post: nothing to unflag
+        }
+    }
+
+    /**
+     * Sets the moderation of many posts at once, e.g. hiding a spam wave.
+     * Returns the ids that were found and changed.
+     */
+    public Set<Integer> moderatePosts(Collection<Integer> postIds, Moderation m) {
+        Set<Integer> changed = new LinkedHashSet<>();
+        repo.moderateAll(postIds, m).forEach((id, post) -> { if (post.isPresent()) changed.add(id); });
+        if (m == Moderation.NORMAL) changed.forEach(flagReasons::remove);
+        return changed;
+    }
+
+    /** Soft-deletes many posts at once; returns the ids that were found. */
+    public Set<Integer> deletePosts(Collection<Integer> postIds) {
+        Set<Integer> changed = new LinkedHashSet<>();
+        repo.softDeleteAll(postIds).forEach((id, post) -> { if (post.isPresent()) changed.add(id); });
+        return changed;
     }
 
     public List<Post> listFlaggedPosts() {
-        return repo.findAll().stream()
-                .filter(p -> p.getModeration() == Moderation.FLAGGED)
-                .collect(Collectors.toList());
+        return repo.search(new SearchSpec().moderation(Moderation.FLAGGED).includeDeleted(true));
     }
 
     public String getFlagReason(int postId) {
         return flagReasons.getOrDefault(postId, "");
     }
 
+    /** Every version of a post's content, oldest first, for staff to audit edits. */
+    public List<EditHistory.Revision> getPostHistory(int postId) {
+        return repo.history(postId);
+    }
+
     // =====================================================================
     // REPLIES
     // =====================================================================
@@ -188,8 +213,9 @@ public class controllerStudentBoard {
     public Reply addReply(int postId, String author, String content) {
         if (repo.findById(postId).isEmpty()) return null;
 
-        Reply r = new Reply(nextReplyId++, author, content, postId);
+        Reply r = new Reply(nextReplyId.getAndIncrement(), author, content, postId);
         replies.put(r.getId(), r);
+        repliesByAuthor.computeIfAbsent(authorKey(r.getAuthor()), k -> new TreeSet<>()).add(r.getId());
         return r;
     }
 
@@ -201,7 +227,15 @@ public class controllerStudentBoard {
     }
 
     public boolean deleteReply(int replyId) {
-        return replies.remove(replyId) != null;
+        Reply r = replies.remove(replyId);
+        if (r == null) return false;
+        String key = authorKey(r.getAuthor());
+        NavigableSet<Integer> ids = repliesByAuthor.get(key);
+        if (ids != null) {
+            ids.remove(replyId);
+            if (ids.isEmpty()) repliesByAuthor.remove(key);
+        }
+        return true;
     }
 
     public void markReplyRead(int replyId, String username) {
@@ -217,6 +251,63 @@ public class controllerStudentBoard {
                 .collect(Collectors.toList());
     }
 
+    // =====================================================================
+    // PER-USER HISTORY
+    // =====================================================================
+
+    /**
+     * One page of the posts written by {@code author}, newest first. Pass the
+     * id of the last post of the previous page as {@code afterPostId} (or
+     * null for the first page). Reads the author index, so a grader's view
+     * of one student costs that student's activity, not the whole board.
+     * Usernames are case-sensitive, so only posts by exactly {@code author}
+     * are listed, although the index itself ignores case.
+     */
+    public List<Post> listPostsByAuthor(String author, Integer afterPostId, int pageSize) {
+        List<Post> page = new ArrayList<>();
+        if (author == null) return page;
+        String key = authorKey(author);
+        Integer after = afterPostId;
+        while (true) {
+            List<Post> batch = repo.findByAuthor(author, after, pageSize);
+            for (Post p : batch) {
+                if (!p.getAuthor().equals(key)) continue;
+                page.add(p);
+                if (pageSize > 0 && page.size() == pageSize) return page;
+            }
+            if (pageSize <= 0 || batch.size() < pageSize) return page;
+            after = batch.get(batch.size() - 1).getId();
+        }
+    }
+
+    /**
+     * One page of the replies written by {@code author}, oldest first. Pass
+     * the id of the last reply of the previous page as {@code afterReplyId}
+     * (or null for the first page); 0 as {@code pageSize} returns them all.
+     * Author matching is exact, as in {@link #listPostsByAuthor}.
+     */
+    public List<Reply> listRepliesByAuthor(String author, Integer afterReplyId, int pageSize) {
+        NavigableSet<Integer> ids = repliesByAuthor.get(authorKey(author));
+        if (ids == null) return List.of();
+        if (afterReplyId != null) ids = ids.tailSet(afterReplyId, false);
+
+        List<Reply> page = new ArrayList<>();
+        for (int id : ids) {
+            if (pageSize > 0 && page.size() == pageSize) break;
+            page.add(replies.get(id));
+        }
+        return page;
+    }
+
+    /**
+     * Index key for an author: the username, trimmed as {@link Post} trims
+     * it. Not case-folded: usernames are case-sensitive, so "Alice" and
+     * "alice" are different students. Folding is only for search matching.
+     */
+    private static String authorKey(String author) {
+        return (author == null) ? "" : author.trim();
+    }
+
     // =====================================================================
     // READ TRACKING
     // =====================================================================
@@ -230,9 +321,8 @@ public class controllerStudentBoard {
     }
 
     public List<Post> listUnreadPosts(String username) {
-        return repo.findAll().stream()
+        return repo.search(new SearchSpec().includeDeleted(true)).stream()
                 .filter(p -> !isPostReadBy(p.getId(), username))
-                .sorted(Comparator.comparing(Post::getCreatedAt).reversed())
                 .collect(Collectors.toList());
     }
 
@@ -240,12 +330,68 @@ public class controllerStudentBoard {
     // SEARCH
     // =====================================================================
 
+    /**
+     * Keyword search, best matches first (BM25 relevance; newest first when
+     * there is no keyword). If nothing contains the keyword as typed, the
+     * search is retried allowing a few typos per word, so "recursoin" still
+     * finds posts about recursion. Posts staff have hidden are left out.
+     */
     public List<Post> searchPosts(String keyword, String thread) {
+        return searchPosts(keyword, thread, false);
+    }
+
+    /**
+     * {@link #searchPosts(String, String)} for staff, who pass
+     * {@code includeHidden} to also see posts they have hidden.
+     */
+    public List<Post> searchPosts(String keyword, String thread, boolean includeHidden) {
+        SearchSpec spec = new SearchSpec()
+                .query(keyword)
+                .thread(thread)
+                .includeDeleted(false)
+                .excludeHidden(!includeHidden)
+                .order(SearchSpec.Order.RELEVANCE);
+        List<Post> results = repo.search(spec);
+        if (results.isEmpty() && keyword != null && !keyword.isBlank()) {
+            results = repo.search(spec.fuzzy(true));
+        }
+        return results;
+    }
+
+    /**
+     * Staff search with the structured query syntax of {@link studentPosts.PostQuery},
+     * e.g. {@code author:alice thread:"Exam Prep" moderation:FLAGGED}. Newest first.
+     *
+     * @throws IllegalArgumentException if the query is malformed
+     */
+    public List<Post> findPosts(String query) {
+        return repo.search(new SearchSpec().where(query));
+    }
+
+    /**
+     * One page of {@link #searchPosts(String, String)}, newest first.
+     * Pass the id of the last post of the previous page as {@code afterPostId}
+     * (or null for the first page).
+     */
+    public List<Post> searchPostsPage(String keyword, String thread, Integer afterPostId, int pageSize) {
+        return searchPostsPage(keyword, thread, afterPostId, pageSize, false, false);
+    }
+
+    /**
+     * {@link #searchPostsPage(String, String, Integer, int)} for staff, who
+     * pass {@code includeHidden} to also see posts they have hidden and
+     * {@code includeDeleted} to also see soft-deleted ones.
+     */
+    public List<Post> searchPostsPage(String keyword, String thread, Integer afterPostId, int pageSize,
+                                      boolean includeHidden, boolean includeDeleted) {
         return repo.search(
                 new SearchSpec()
                         .query(keyword)
                         .thread(thread)
-                        .includeDeleted(false)
+                        .includeDeleted(includeDeleted)
+                        .excludeHidden(!includeHidden)
+                        .after(afterPostId)
+                        .limit(pageSize)
         );
     }
 
@@ -268,16 +414,27 @@ public class controllerStudentBoard {
     // HELP-PEERS DASHBOARD
     // =====================================================================
 
+    /**
+     * Authors of the posts that {@code author} replied to, themself left out.
+     * Walks that student's replies only.
+     */
+    public Set<String> getPeersHelpedBy(String author) {
+        Set<String> peers = new HashSet<>();
+        String key = authorKey(author);
+        for (int id : repliesByAuthor.getOrDefault(key, Collections.emptyNavigableSet())) {
+            repo.findById(replies.get(id).getParentPostId()).ifPresent(parent -> {
+                if (!key.equals(parent.getAuthor())) peers.add(parent.getAuthor());
+            });
+        }
+        return peers;
+    }
+
     public Map<String, Set<String>> calculateStudentHelpedPeers() {
         Map<String, Set<String>> helped = new HashMap<>();
 
-        for (Reply r : replies.values()) {
-            repo.findById(r.getParentPostId()).ifPresent(parent -> {
-                if (!r.getAuthor().equals(parent.getAuthor())) {
-                    helped.computeIfAbsent(r.getAuthor(), k -> new HashSet<>())
-                            .add(parent.getAuthor());
-                }
-            });
+        for (String author : repliesByAuthor.keySet()) {
+            Set<String> peers = getPeersHelpedBy(author);
+            if (!peers.isEmpty()) helped.put(author, peers);
         }
         return helped;
     }
@@ -293,33 +450,40 @@ public class controllerStudentBoard {
     // GRADING CSV EXPORT
     // =====================================================================
 
-    public String exportGradingSummaryCSV() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("Student,Answers Posted,Peers Helped,Flagged/Unreasonable Answers\n");
-
-        Map<String, Integer> postedAnswers = new HashMap<>();
-        Map<String, Integer> unreasonable = new HashMap<>();
-        Map<String, Set<String>> helped = calculateStudentHelpedPeers();
+    private static final String GRADING_CSV_HEADER =
+            "Student,Answers Posted,Peers Helped,Flagged/Unreasonable Answers\n";
 
-        for (Reply r : replies.values()) {
-            postedAnswers.merge(r.getAuthor(), 1, Integer::sum);
-            if (!isAnswerReasonable(r)) {
-                unreasonable.merge(r.getAuthor(), 1, Integer::sum);
-            }
+    public String exportGradingSummaryCSV() {
+        StringBuilder sb = new StringBuilder(GRADING_CSV_HEADER);
+        for (Map.Entry<String, NavigableSet<Integer>> e : repliesByAuthor.entrySet()) {
+            appendGradingRow(sb, e.getKey(), e.getValue());
         }
+        return sb.toString();
+    }
 
-        Set<String> all = new HashSet<>(postedAnswers.keySet());
-        all.addAll(helped.keySet());
+    /**
+     * The grading CSV for one student: the header and their row, or just the
+     * header if they have not replied. Reads only that student's replies.
+     */
+    public String exportGradingSummaryCSV(String student) {
+        StringBuilder sb = new StringBuilder(GRADING_CSV_HEADER);
+        String key = authorKey(student);
+        NavigableSet<Integer> ids = repliesByAuthor.get(key);
+        if (ids != null) appendGradingRow(sb, key, ids);
+        return sb.toString();
+    }
 
-        for (String s : all) {
-            sb.append(String.format("%s,%d,%d,%d\n",
-                    s,
-                    postedAnswers.getOrDefault(s, 0),
-                    helped.getOrDefault(s, Set.of()).size(),
-                    unreasonable.getOrDefault(s, 0)
-            ));
+    private void appendGradingRow(StringBuilder sb, String author, NavigableSet<Integer> replyIds) {
+        int unreasonable = 0;
+        for (int id : replyIds) {
+            if (!isAnswerReasonable(replies.get(id))) unreasonable++;
         }
-        return sb.toString();
+        sb.append(String.format("%s,%d,%d,%d\n",
+                author,
+                replyIds.size(),
+                getPeersHelpedBy(author).size(),
+                unreasonable
+        ));
     }
 
     // =====================================================================
@@ -365,9 +529,11 @@ public class controllerStudentBoard {
     }
 
     public List<Map<String, Object>> listPostSummaries(String username, boolean othersOnly) {
-        return repo.findAll().stream()
-                .filter(p -> !othersOnly || !p.getAuthor().equals(username))
-                .sorted(Comparator.comparing(Post::getCreatedAt).reversed())
+        // The user's own posts come from the author index, not a name check per post.
+        Set<Integer> own = new HashSet<>();
+        if (othersOnly) listPostsByAuthor(username, null, 0).forEach(p -> own.add(p.getId()));
+        return repo.search(new SearchSpec().includeDeleted(true).excludeHidden(true)).stream()
+                .filter(p -> !own.contains(p.getId()))
                 .map(p -> getPostSummary(p, username))
                 .collect(Collectors.toList());
     }
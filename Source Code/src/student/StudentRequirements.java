@@ -124,6 +124,12 @@ public class StudentRequirements {
 
 
 
+        // Case-folded content, computed once so searches do not lower-case every post
+
+        private final String searchContent;
+
+
+
         public Post(int id, String author, String content, String thread) {
 
             this.id = id;
@@ -136,6 +142,8 @@ public class StudentRequirements {
 
             this.createdAt = LocalDateTime.now();
 
+            this.searchContent = content == null ? "" : entityClasses.Post.fold(content);
+
         }
 
 
@@ -180,6 +188,16 @@ public class StudentRequirements {
 
         public void setDeleted() { this.deleted = true; }
 
+
+
+        // Whether the displayed content contains a keyword already passed through Post.fold
+
+        public boolean contentContains(String foldedKeyword) {
+
+            return deleted ? "[deleted]".contains(foldedKeyword) : searchContent.contains(foldedKeyword);
+
+        }
+
     }
 
 
@@ -268,11 +286,13 @@ public class StudentRequirements {
 
     public List<Post> searchPosts(String keyword, String thread) {
 
+        String key = entityClasses.Post.fold(keyword);
+
         return posts.values().stream()
 
             .filter(p -> (thread == null || thread.isBlank() || p.getThread().equalsIgnoreCase(thread)))
 
-            .filter(p -> p.getContent().toLowerCase().contains(keyword.toLowerCase()))
+            .filter(p -> p.contentContains(key))
 
             .collect(Collectors.toList());
 
@@ -0,0 +1,112 @@
+package studentPosts;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers {@link PostChange}s to listeners without ever making a writer
+ * wait. Each listener gets its own {@link SubmissionPublisher}, so it has
+ * its own bounded buffer and is fed one change at a time on a daemon thread,
+ * asking for the next only after it has handled the last.
+ *
+ * <p>{@link #publish(PostChange)} is called under the repository's write
+ * lock, so it must not block. When a listener's buffer is full the change
+ * is dropped for that listener only, and it gets
+ * {@link PostChange.Listener#onOverflow()} once it has worked through what
+ * is still buffered. A slow screen therefore falls back to one full reload
+ * instead of holding up the board or using unbounded memory.</p>
+ *
+ * <p>A listener that throws is unsubscribed: the error is logged and it
+ * gets no further changes.</p>
+ */
+final class ChangeFeed {
+
+    /** Default number of changes buffered per listener before it overflows. */
+    static final int DEFAULT_BUFFER = 256;
+
+    /**
+     * Runs the deliveries. Kept apart from the common pool, so a listener
+     * that blocks (say, waiting for the FX thread) cannot stall parallel
+     * searches.
+     */
+    private static final Executor DELIVERY = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "post-change-feed");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    /** Whether anybody is listening; lets writers skip building events. */
+    boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    /** Hands a change to every listener, dropping it for those that are full. */
+    void publish(PostChange change) {
+        for (Subscriber s : subscribers) {
+            s.publisher.offer(change, (subscriber, dropped) -> {
+                s.overflowed.set(true);
+                return false;
+            });
+        }
+    }
+
+    /**
+     * Registers a listener with a buffer of at least {@code buffer} changes.
+     * Closing the returned handle stops delivery.
+     */
+    AutoCloseable subscribe(PostChange.Listener listener, int buffer) {
+        Subscriber s = new Subscriber(listener, buffer);
+        subscribers.add(s);
+        s.publisher.subscribe(s);
+        return () -> {
+            subscribers.remove(s);
+            s.publisher.close();
+        };
+    }
+
+    /** One listener with its own publisher and buffer. */
+    private final class Subscriber implements Flow.Subscriber<PostChange> {
+        final PostChange.Listener listener;
+        final SubmissionPublisher<PostChange> publisher;
+        final AtomicBoolean overflowed = new AtomicBoolean();
+        private Flow.Subscription subscription;
+
+        Subscriber(PostChange.Listener listener, int buffer) {
+            this.listener = listener;
+            this.publisher = new SubmissionPublisher<>(DELIVERY, Math.max(1, buffer));
+        }
+
+        @Override public void onSubscribe(Flow.Subscription s) {
+            subscription = s;
+            s.request(1);
+        }
+
+        @Override public void onNext(PostChange change) {
+            try {
+                listener.onChange(change);
+            } finally {
+                // Drops are reported after the next delivered change. One
+                // that races with the last delivery waits for the next write.
+                if (overflowed.getAndSet(false)) listener.onOverflow();
+                subscription.request(1);
+            }
+        }
+
+        /** The listener threw, which cancelled its subscription. */
+        @Override public void onError(Throwable t) {
+            subscribers.remove(this);
+            publisher.close();
+            System.err.println("Post change listener " + listener + " failed and was unsubscribed");
+            t.printStackTrace();
+        }
+
+        @Override public void onComplete() { }
+    }
+}
@@ -0,0 +1,490 @@
+package studentPosts;
+
+import entityClasses.Post;
+import entityClasses.Post.Moderation;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Compact post store for archive-sized boards. Instead of one {@link Post}
+ * object per post (two {@code LocalDateTime}s, an enum and several Strings
+ * each), every field lives in its own primitive array, one slot per row:
+ *
+ * <ul>
+ *   <li>id: {@code int}</li>
+ *   <li>author, thread: {@code int} codes into a dictionary of distinct names</li>
+ *   <li>createdAt, editedAt: {@code long} nanoseconds since the epoch (UTC),
+ *       which round-trips {@code LocalDateTime.now()} exactly</li>
+ *   <li>deleted and moderation: one {@code byte} of flags</li>
+ *   <li>content: UTF-8 bytes in a shared arena, addressed by offset and length</li>
+ * </ul>
+ *
+ * <p>Rows are kept sorted by id, so finding a post is a binary search over
+ * the id column and needs no separate hash table. Boards hand out ids in
+ * increasing order, so adding a post is almost always an append.</p>
+ *
+ * <p>Posts are materialized only when a caller asks for them. Filters such as
+ * thread, author, moderation and deleted run over the primitive columns
+ * alone, so a scan walks a few dense arrays and builds objects only for the
+ * rows that match.</p>
+ *
+ * <p>Editing a post overwrites its row. If the content changed, the new text
+ * is appended to the arena and the old bytes become garbage, which is
+ * compacted away once it makes up half of the arena.</p>
+ *
+ * <p>It is a full {@link PostRepository}, checked by
+ * {@link PostRepositoryConformance} like the other backends. It keeps no
+ * search indexes: a search filters on the columns, orders the surviving
+ * rows newest first by their {@code createdAt} and id columns, and only
+ * then materializes rows one at a time for the keyword and {@code where}
+ * checks, stopping once the page is full. {@code RELEVANCE} is not ranked
+ * and returns newest first. Edit history is kept as an {@link EditHistory}
+ * per edited post.</p>
+ */
+public class ColumnarPostStore implements PostRepository {
+
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final byte DELETED = 1;
+    private static final int MODERATION_SHIFT = 1;
+    private static final Moderation[] MODERATIONS = Moderation.values();
+
+    // --- Row columns ---
+    private int rows = 0;
+    private int[] ids = new int[16];
+    private int[] authors = new int[16];
+    private int[] threads = new int[16];
+    private long[] createdAt = new long[16];
+    private long[] editedAt = new long[16];
+    private byte[] flags = new byte[16];
+    private int[] contentOffset = new int[16];
+    private int[] contentLength = new int[16];
+
+    // --- Content arena ---
+    private byte[] arena = new byte[1024];
+    private int arenaUsed = 0;
+    private int arenaGarbage = 0;
+
+    // --- Name dictionary shared by the author and thread columns ---
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    /** Post id -> its earlier contents; only posts that were edited have one. */
+    private final Map<Integer, EditHistory> histories = new HashMap<>();
+
+    /** Highest post id seen so far; {@link #nextId()} hands out the next one. */
+    private int lastId = 0;
+
+    /**
+     * Builds a store holding the given posts, sized to fit them exactly.
+     */
+    public static ColumnarPostStore of(Collection<Post> posts) {
+        List<Post> sorted = new ArrayList<>(posts);
+        sorted.sort(Comparator.comparingInt(Post::getId));
+        ColumnarPostStore store = new ColumnarPostStore();
+        store.resize(Math.max(16, sorted.size()));
+        for (Post p : sorted) store.put(p);
+        store.arena = Arrays.copyOf(store.arena, Math.max(16, store.arenaUsed));
+        return store;
+    }
+
+    // ============================================================
+    // WRITE
+    // ============================================================
+
+    /**
+     * Adds a post, or overwrites the row of the post with the same id. A
+     * changed content is recorded in the post's edit history.
+     */
+    public synchronized void put(Post p) {
+        int row = Arrays.binarySearch(ids, 0, rows, p.getId());
+        if (row < 0) {
+            row = -row - 1;
+            openRow(row);
+            ids[row] = p.getId();
+            contentLength[row] = -1;
+        } else {
+            String previous = content(row);
+            String next = p.getRawContent();
+            if (!previous.equals(next)) {
+                LocalDateTime createdAt = writtenAt(row);
+                histories.computeIfAbsent(p.getId(), id -> new EditHistory(previous, createdAt))
+                        .add(previous, next, (p.getEditedAt() != null) ? p.getEditedAt() : p.getCreatedAt());
+            }
+        }
+        lastId = Math.max(lastId, p.getId());
+        authors[row] = code(p.getAuthor());
+        threads[row] = code(p.getThread());
+        createdAt[row] = toNanos(p.getCreatedAt());
+        editedAt[row] = toNanos(p.getEditedAt());
+        flags[row] = (byte) ((p.isDeleted() ? DELETED : 0)
+                | (p.getModeration().ordinal() << MODERATION_SHIFT));
+        storeContent(row, p.getRawContent().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public synchronized Post create(int id, String author, String thread, String content) {
+        Post p = Post.createNew(id, author, thread, content);
+        put(p);
+        return p;
+    }
+
+    public synchronized Post create(String author, String thread, String content) {
+        return create(nextId(), author, thread, content);
+    }
+
+    public synchronized Map<Integer, Post> createAll(Collection<Post> posts) {
+        Map<Integer, Post> out = new LinkedHashMap<>();
+        for (Post p : posts) {
+            put(p);
+            out.put(p.getId(), p);
+        }
+        return out;
+    }
+
+    public synchronized int nextId() {
+        return ++lastId;
+    }
+
+    public synchronized Post update(Post updated) {
+        require(updated.getId());
+        put(updated);
+        return updated;
+    }
+
+    public synchronized Post updateContent(int id, String newContent) {
+        return change(id, p -> p.withContent(newContent));
+    }
+
+    public synchronized Post moveToThread(int id, String newThread) {
+        return change(id, p -> p.withThread(newThread == null ? null : newThread.trim()));
+    }
+
+    public synchronized Post moderate(int id, Moderation m) {
+        return change(id, p -> p.withModeration(m));
+    }
+
+    public synchronized Map<Integer, Optional<Post>> moderateAll(Collection<Integer> ids, Moderation m) {
+        return changeAll(ids, p -> p.withModeration(m));
+    }
+
+    public synchronized Post softDelete(int id) {
+        return change(id, Post::softDeleted);
+    }
+
+    public synchronized Map<Integer, Optional<Post>> softDeleteAll(Collection<Integer> ids) {
+        return changeAll(ids, Post::softDeleted);
+    }
+
+    // ============================================================
+    // READ
+    // ============================================================
+
+    /** Returns the post with the given id, built from its row. */
+    public synchronized Optional<Post> findById(int id) {
+        int row = Arrays.binarySearch(ids, 0, rows, id);
+        return row < 0 ? Optional.empty() : Optional.of(materialize(row));
+    }
+
+    /** Number of posts stored. */
+    public synchronized int size() {
+        return rows;
+    }
+
+    public synchronized List<Post> findAll() {
+        return select(null, null, null, true, 0);
+    }
+
+    public synchronized List<Post> findByThread(String thread) {
+        if (thread == null) return List.of();
+        return select(thread, null, null, true, 0);
+    }
+
+    /** Filters on the author column; only the page is materialized. */
+    public synchronized List<Post> findByAuthor(String author, Integer after, int limit) {
+        if (author == null) return List.of();
+        BitSet authorCodes = codesIgnoringCase(author.trim());
+        return page(row -> authorCodes.get(authors[row]), row -> true, after, limit);
+    }
+
+    public synchronized int countByAuthor(String author) {
+        if (author == null) return 0;
+        BitSet authorCodes = codesIgnoringCase(author.trim());
+        int n = 0;
+        for (int row = 0; row < rows; row++) {
+            if (authorCodes.get(authors[row])) n++;
+        }
+        return n;
+    }
+
+    /**
+     * Filters on the flag and thread columns, orders the surviving rows
+     * newest first, and materializes them one at a time for the keyword and
+     * {@code where} checks until the page is full. Fuzzy matching follows
+     * {@link ScanningPostRepository}.
+     */
+    public synchronized List<Post> search(SearchSpec spec) {
+        SearchSpec s = (spec == null) ? new SearchSpec() : spec;
+        String q = (s.query == null) ? null : Post.fold(s.query);
+        BitSet threadCodes = (s.thread == null) ? null : codesIgnoringCase(s.thread);
+        PostQuery where = (s.where == null || s.where.isBlank()) ? null : PostQuery.parse(s.where);
+        List<String> fuzzyTokens = (q == null || !s.fuzzy) ? null : InvertedIndex.tokenize(q);
+
+        IntPredicate columns = row -> matches(row, threadCodes, -1, s.moderation, s.includeDeleted)
+                && !(s.excludeHidden && (flags[row] >>> MODERATION_SHIFT) == Moderation.HIDDEN.ordinal());
+        Predicate<Post> rest = p ->
+                (q == null || p.containsFolded(q) || (fuzzyTokens != null && ScanningPostRepository.fuzzy(p, fuzzyTokens)))
+                && (where == null || where.test(p));
+        return page(columns, rest, s.after, s.limit);
+    }
+
+    public synchronized List<EditHistory.Revision> history(int id) {
+        int row = require(id);
+        EditHistory h = histories.get(id);
+        if (h == null) return List.of(new EditHistory.Revision(0, content(row), writtenAt(row)));
+        return h.revisions();
+    }
+
+    /**
+     * Returns the posts that pass every given filter, in id order.
+     * Only the matching rows are turned into Post objects.
+     *
+     * @param thread         thread name, case-insensitive; {@code null} for any
+     * @param author         exact author username; {@code null} for any
+     * @param moderation     required moderation state; {@code null} for any
+     * @param includeDeleted whether soft-deleted posts are returned
+     * @param limit          maximum number of posts; 0 for no limit
+     */
+    public synchronized List<Post> select(String thread, String author, Moderation moderation,
+                                          boolean includeDeleted, int limit) {
+        List<Post> out = new ArrayList<>();
+        BitSet threadCodes = (thread == null) ? null : codesIgnoringCase(thread);
+        int authorCode = (author == null) ? -1 : codes.getOrDefault(author, -2);
+        if ((threadCodes != null && threadCodes.isEmpty()) || authorCode == -2) return out;
+
+        for (int row = 0; row < rows; row++) {
+            if (matches(row, threadCodes, authorCode, moderation, includeDeleted)) {
+                out.add(materialize(row));
+                if (limit > 0 && out.size() == limit) break;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Counts the posts that pass the filters of {@link #select} without
+     * materializing any of them.
+     */
+    public synchronized int count(String thread, String author, Moderation moderation,
+                                  boolean includeDeleted) {
+        BitSet threadCodes = (thread == null) ? null : codesIgnoringCase(thread);
+        int authorCode = (author == null) ? -1 : codes.getOrDefault(author, -2);
+        if ((threadCodes != null && threadCodes.isEmpty()) || authorCode == -2) return 0;
+
+        int n = 0;
+        for (int row = 0; row < rows; row++) {
+            if (matches(row, threadCodes, authorCode, moderation, includeDeleted)) n++;
+        }
+        return n;
+    }
+
+    /** Bytes held by the columns and the arena; the name dictionary is not counted. */
+    public synchronized long footprintBytes() {
+        long perRow = 4L * 5 + 8L * 2 + 1;   // ids, authors, threads, offset, length; two times; flags
+        return perRow * ids.length + arena.length;
+    }
+
+    // ============================================================
+    // INTERNAL HELPERS
+    // ============================================================
+
+    /**
+     * The rows passing {@code columns}, newest first by (createdAt, id) and
+     * after the {@code after} cursor, materialized in that order while they
+     * pass {@code test} until {@code limit} posts are found (0 for all).
+     */
+    private List<Post> page(IntPredicate columns, Predicate<Post> test,
+                            Integer after, int limit) {
+        int cursor = (after == null) ? -1 : require(after);
+        int[] order = IntStream.range(0, rows)
+                .filter(columns)
+                .filter(row -> cursor < 0 || newerFirst(row, cursor) > 0)
+                .boxed()
+                .sorted(this::newerFirst)
+                .mapToInt(Integer::intValue)
+                .toArray();
+        List<Post> out = new ArrayList<>();
+        for (int row : order) {
+            Post p = materialize(row);
+            if (!test.test(p)) continue;
+            out.add(p);
+            if (limit > 0 && out.size() == limit) break;
+        }
+        return out;
+    }
+
+    /** Newest-first order of two rows: negative if {@code a} comes first. */
+    private int newerFirst(int a, int b) {
+        int c = Long.compare(createdAt[b], createdAt[a]);
+        return (c != 0) ? c : Integer.compare(ids[b], ids[a]);
+    }
+
+    private Post change(int id, UnaryOperator<Post> how) {
+        Post next = how.apply(materialize(require(id)));
+        put(next);
+        return next;
+    }
+
+    private Map<Integer, Optional<Post>> changeAll(Collection<Integer> ids, UnaryOperator<Post> how) {
+        Map<Integer, Optional<Post>> out = new LinkedHashMap<>();
+        for (int id : ids) {
+            Optional<Post> cur = findById(id);
+            out.put(id, cur.isEmpty() ? Optional.empty() : Optional.of(change(id, how)));
+        }
+        return out;
+    }
+
+    /** Row of the post with id {@code id}. */
+    private int require(int id) {
+        int row = Arrays.binarySearch(ids, 0, rows, id);
+        if (row < 0) throw new NoSuchElementException("post " + id + " not found");
+        return row;
+    }
+
+    /** The content of a row. */
+    private String content(int row) {
+        return new String(arena, contentOffset[row], contentLength[row], StandardCharsets.UTF_8);
+    }
+
+    /** When the row's version was written: its last edit, else its creation. */
+    private LocalDateTime writtenAt(int row) {
+        return fromNanos(editedAt[row] != NO_TIME ? editedAt[row] : createdAt[row]);
+    }
+
+    private boolean matches(int row, BitSet threadCodes, int authorCode,
+                            Moderation moderation, boolean includeDeleted) {
+        byte f = flags[row];
+        if (!includeDeleted && (f & DELETED) != 0) return false;
+        if (moderation != null && (f >>> MODERATION_SHIFT) != moderation.ordinal()) return false;
+        if (authorCode >= 0 && authors[row] != authorCode) return false;
+        return threadCodes == null || threadCodes.get(threads[row]);
+    }
+
+    private Post materialize(int row) {
+        byte f = flags[row];
+        return Post.restore(ids[row], names.get(authors[row]), names.get(threads[row]), content(row),
+                fromNanos(createdAt[row]), fromNanos(editedAt[row]),
+                (f & DELETED) != 0, MODERATIONS[f >>> MODERATION_SHIFT]);
+    }
+
+    /** Dictionary codes of every name equal to {@code name} ignoring case. */
+    private BitSet codesIgnoringCase(String name) {
+        String key = Post.fold(name);
+        BitSet out = new BitSet();
+        for (int c = 0; c < names.size(); c++) {
+            if (Post.fold(names.get(c)).equals(key)) out.set(c);
+        }
+        return out;
+    }
+
+    private int code(String name) {
+        Integer c = codes.get(name);
+        if (c != null) return c;
+        int next = names.size();
+        names.add(name);
+        codes.put(name, next);
+        return next;
+    }
+
+    private void storeContent(int row, byte[] bytes) {
+        int len = contentLength[row];
+        if (len == bytes.length
+                && Arrays.equals(arena, contentOffset[row], contentOffset[row] + len, bytes, 0, len)) {
+            return;
+        }
+        if (len >= 0) {
+            arenaGarbage += len;
+            contentLength[row] = -1;
+        }
+        if (arenaGarbage > arenaUsed / 2) compactArena();
+
+        if (arenaUsed + bytes.length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaUsed + bytes.length));
+        }
+        System.arraycopy(bytes, 0, arena, arenaUsed, bytes.length);
+        contentOffset[row] = arenaUsed;
+        contentLength[row] = bytes.length;
+        arenaUsed += bytes.length;
+    }
+
+    /** Copies the live content of every row to a fresh arena, in row order. */
+    private void compactArena() {
+        int live = arenaUsed - arenaGarbage;
+        byte[] fresh = new byte[Math.max(1024, live * 2)];
+        int at = 0;
+        for (int row = 0; row < rows; row++) {
+            int len = contentLength[row];
+            if (len < 0) continue;
+            System.arraycopy(arena, contentOffset[row], fresh, at, len);
+            contentOffset[row] = at;
+            at += len;
+        }
+        arena = fresh;
+        arenaUsed = at;
+        arenaGarbage = 0;
+    }
+
+    /** Makes room for a new row at {@code at}, shifting later rows down by one. */
+    private void openRow(int at) {
+        if (rows == ids.length) resize(ids.length * 2);
+        int tail = rows - at;
+        if (tail > 0) {
+            System.arraycopy(ids, at, ids, at + 1, tail);
+            System.arraycopy(authors, at, authors, at + 1, tail);
+            System.arraycopy(threads, at, threads, at + 1, tail);
+            System.arraycopy(createdAt, at, createdAt, at + 1, tail);
+            System.arraycopy(editedAt, at, editedAt, at + 1, tail);
+            System.arraycopy(flags, at, flags, at + 1, tail);
+            System.arraycopy(contentOffset, at, contentOffset, at + 1, tail);
+            System.arraycopy(contentLength, at, contentLength, at + 1, tail);
+        }
+        rows++;
+    }
+
+    private void resize(int cap) {
+        ids = Arrays.copyOf(ids, cap);
+        authors = Arrays.copyOf(authors, cap);
+        threads = Arrays.copyOf(threads, cap);
+        createdAt = Arrays.copyOf(createdAt, cap);
+        editedAt = Arrays.copyOf(editedAt, cap);
+        flags = Arrays.copyOf(flags, cap);
+        contentOffset = Arrays.copyOf(contentOffset, cap);
+        contentLength = Arrays.copyOf(contentLength, cap);
+    }
+
+    private static long toNanos(LocalDateTime t) {
+        if (t == null) return NO_TIME;
+        return t.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + t.getNano();
+    }
+
+    private static LocalDateTime fromNanos(long nanos) {
+        if (nanos == NO_TIME) return null;
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+                (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,84 @@
+package studentPosts;
+
+import entityClasses.Post;
+import entityClasses.Post.Moderation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares {@link ColumnarPostStore} with a plain list of {@link Post}
+ * objects: retained heap for the same board, and the time of a filtered
+ * scan (one thread, not deleted, flagged) over each.
+ *
+ * <p>Run with {@code java studentPosts.ColumnarPostStoreBenchmark [posts contentChars]}.
+ * Heap figures come from {@link Runtime} after a full GC and are approximate.
+ * The ratio depends mostly on content length: the columns remove per-object
+ * overhead, while the text itself costs about the same either way.</p>
+ */
+public class ColumnarPostStoreBenchmark {
+
+    private static final String[] THREADS = {"general", "math", "cs", "exams", "projects"};
+
+    public static void main(String[] args) {
+        int posts = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int chars = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        System.out.printf("%d posts, %d chars of content each%n", posts, chars);
+
+        long base = usedHeap();
+        List<Post> objects = build(posts, chars);
+        long objectBytes = usedHeap() - base;
+
+        base = usedHeap();
+        ColumnarPostStore columns = ColumnarPostStore.of(objects);
+        long columnBytes = usedHeap() - base;
+
+        System.out.printf("Post objects : %,12d bytes (%6.1f bytes/post)%n", objectBytes, (double) objectBytes / posts);
+        System.out.printf("columnar     : %,12d bytes (%6.1f bytes/post, %,d reported)%n",
+                columnBytes, (double) columnBytes / posts, columns.footprintBytes());
+        System.out.printf("ratio        : %.1fx smaller%n", (double) objectBytes / columnBytes);
+
+        int found = 0;
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < 10; run++) {
+            long t = System.nanoTime();
+            found = 0;
+            for (Post p : objects) {
+                if (!p.isDeleted() && p.getModeration() == Moderation.FLAGGED
+                        && p.getThread().equalsIgnoreCase("math")) found++;
+            }
+            best = Math.min(best, System.nanoTime() - t);
+        }
+        System.out.printf("scan objects : %8.2f ms (%d matches)%n", best / 1e6, found);
+
+        best = Long.MAX_VALUE;
+        for (int run = 0; run < 10; run++) {
+            long t = System.nanoTime();
+            found = columns.count("math", null, Moderation.FLAGGED, false);
+            best = Math.min(best, System.nanoTime() - t);
+        }
+        System.out.printf("scan columns : %8.2f ms (%d matches)%n", best / 1e6, found);
+    }
+
+    /** A board whose posts look like ones that went through the repository. */
+    private static List<Post> build(int posts, int chars) {
+        SymbolTable symbols = new SymbolTable();
+        List<Post> out = new ArrayList<>(posts);
+        String filler = "lorem ipsum dolor sit amet ".repeat(chars / 27 + 1);
+        for (int i = 0; i < posts; i++) {
+            String content = (i + " " + filler).substring(0, chars);
+            Post p = Post.createNew(i, symbols.intern("student" + (i % 3000)),
+                    symbols.intern(THREADS[i % THREADS.length]), content);
+            if (i % 7 == 0) p = p.withModeration(Moderation.FLAGGED);
+            if (i % 11 == 0) p = p.softDeleted();
+            out.add(p);
+        }
+        return out;
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
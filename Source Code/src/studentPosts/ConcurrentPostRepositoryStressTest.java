@@ -0,0 +1,141 @@
+package studentPosts;
+
+import entityClasses.Post;
+import entityClasses.Post.Moderation;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hammers one shared {@link InMemoryPostRepository} from writer, editor and
+ * searcher threads at the same time, then checks that ids were never handed
+ * out twice and that the thread and keyword indexes agree with the store.
+ * Run with {@code java studentPosts.ConcurrentPostRepositoryStressTest}.
+ */
+public class ConcurrentPostRepositoryStressTest {
+    private static final int WRITERS = 4, EDITORS = 3, SEARCHERS = 3;
+    private static final int POSTS_PER_WRITER = 500;
+    private static final String[] THREADS = {"general", "math", "cs"};
+
+    private int passed=0, failed=0;
+    public static void main(String[] args) throws Exception { new ConcurrentPostRepositoryStressTest().run(); }
+
+    private void run() throws Exception {
+        concurrent_writers_editors_searchers();
+
+        System.out.printf("%nConcurrentPostRepositoryStressTest %s (%d/%d)%n",
+                failed==0?"PASSED":"DONE WITH FAILURES", passed, passed+failed);
+        if (failed>0) System.exit(1);
+    }
+
+    private void concurrent_writers_editors_searchers() throws InterruptedException {
+        InMemoryPostRepository repo = new InMemoryPostRepository();
+        ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<Integer> created = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch writersDone = new CountDownLatch(WRITERS);
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS + EDITORS + SEARCHERS);
+
+        for (int w = 0; w < WRITERS; w++) {
+            final String author = "writer" + w;
+            pool.submit(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < POSTS_PER_WRITER; i++) {
+                        String thread = THREADS[i % THREADS.length];
+                        Post p = repo.create(author, thread, "stress post " + author + " " + i);
+                        created.add(p.getId());
+                    }
+                } catch (Throwable t) { errors.add(t); }
+                finally { writersDone.countDown(); }
+            });
+        }
+
+        for (int e = 0; e < EDITORS; e++) {
+            pool.submit(() -> {
+                try {
+                    start.await();
+                    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                    while (writersDone.getCount() > 0) {
+                        Integer[] ids = created.toArray(new Integer[0]);
+                        if (ids.length == 0) continue;
+                        int id = ids[rnd.nextInt(ids.length)];
+                        switch (rnd.nextInt(4)) {
+                            case 0 -> repo.updateContent(id, "edited stress post " + id);
+                            case 1 -> repo.moveToThread(id, THREADS[rnd.nextInt(THREADS.length)]);
+                            case 2 -> repo.moderate(id, Moderation.FLAGGED);
+                            default -> repo.moderate(id, Moderation.NORMAL);
+                        }
+                    }
+                } catch (Throwable t) { errors.add(t); }
+            });
+        }
+
+        for (int s = 0; s < SEARCHERS; s++) {
+            pool.submit(() -> {
+                try {
+                    start.await();
+                    while (writersDone.getCount() > 0) {
+                        for (Post p : repo.search(new SearchSpec().query("stress").limit(50))) {
+                            if (p == null) throw new AssertionError("null post in results");
+                        }
+                        repo.findByThread("math");
+                        repo.search(new SearchSpec().thread("cs").query("post"));
+                    }
+                } catch (Throwable t) { errors.add(t); }
+            });
+        }
+
+        start.countDown();
+        pool.shutdown();
+        if (!pool.awaitTermination(60, TimeUnit.SECONDS)) fail("workers did not finish");
+
+        for (Throwable t : errors) fail("worker threw " + t);
+
+        int total = WRITERS * POSTS_PER_WRITER;
+        assertEq(total, new HashSet<>(created).size(), "ids unique");
+        assertEq(total, repo.findAll().size(), "every post stored");
+        assertEq(total + 1, repo.nextId(), "id sequence continues after the last post");
+
+        int inThreads = 0;
+        for (String t : THREADS) {
+            for (Post p : repo.findByThread(t)) {
+                assertEq(t, p.getThread(), "thread index matches post " + p.getId());
+                inThreads++;
+            }
+        }
+        assertEq(total, inThreads, "every post in exactly one thread");
+
+        Set<Integer> found = new HashSet<>(ids(repo.search(new SearchSpec().query("stress post").includeDeleted(true))));
+        assertEq(total, found.size(), "keyword index covers every post");
+
+        List<Post> all = repo.search(new SearchSpec().includeDeleted(true));
+        boolean ordered = true;
+        for (int i = 1; i < all.size(); i++) {
+            Post a = all.get(i - 1), b = all.get(i);
+            if (a.getCreatedAt().isBefore(b.getCreatedAt())) ordered = false;
+        }
+        assertTrue(ordered, "newest-first order intact");
+        pass("concurrent_writers_editors_searchers");
+    }
+
+    private static List<Integer> ids(List<Post> posts){
+        List<Integer> out = new ArrayList<>();
+        for (Post p : posts) out.add(p.getId());
+        return out;
+    }
+
+    // tiny asserts
+    private void assertTrue(boolean c,String m){ if(!c) fail("assertTrue: "+m); }
+    private void assertEq(Object e,Object a,String m){ if(e==null? a!=null:!e.equals(a)) fail("assertEq: "+m+" exp="+e+" act="+a); }
+    private void pass(String n){ passed++; System.out.println("✅ "+n); }
+    private void fail(String m){ failed++; System.err.println("❌ "+m); }
+}
@@ -0,0 +1,194 @@
+package studentPosts;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Every earlier version of one post's content, stored compactly. Version 0
+ * is the content the post was created with; each edit adds one version.
+ * The newest version is the post's current content.
+ *
+ * <p>Most edits fix a typo or add a sentence, so a version is stored as a
+ * delta against the one before it: how many characters are kept from the
+ * start and from the end, and the text that replaces the middle. Every
+ * {@link #CHECKPOINT_EVERY}th version is stored in full, as UTF-8 compressed
+ * with {@link java.util.zip.Deflater}, so rebuilding any version inflates
+ * one checkpoint and applies at most {@code CHECKPOINT_EVERY - 1} deltas.</p>
+ *
+ * <p>No version is kept as a plain String: the text an edit replaces is
+ * handed in by the caller, who reads it from the post itself, so the
+ * current content lives only in the post's body.</p>
+ *
+ * <p>Not thread-safe on its own; {@link InMemoryPostRepository} only touches
+ * it under its lock.</p>
+ */
+public final class EditHistory {
+
+    /** A version stored in full every this many versions. */
+    static final int CHECKPOINT_EVERY = 16;
+
+    /** Compressed UTF-8 of versions 0, CHECKPOINT_EVERY, 2 * CHECKPOINT_EVERY, ... */
+    private byte[][] checkpoints = new byte[1][];
+
+    /** Uncompressed length of each checkpoint, to inflate it in one go. */
+    private int[] checkpointLengths = new int[1];
+
+    /** Per version: characters kept from the start of the previous version. */
+    private int[] prefix = new int[4];
+
+    /** Per version: characters kept from the end of the previous version. */
+    private int[] suffix = new int[4];
+
+    /** Per version: the text between the kept prefix and suffix (null at checkpoints). */
+    private String[] middle = new String[4];
+
+    /** Per version: when it was written. */
+    private LocalDateTime[] at = new LocalDateTime[4];
+
+    /** Number of versions stored. */
+    private int count;
+
+    /** Starts a history whose version 0 is {@code original}, written at {@code createdAt}. */
+    EditHistory(String original, LocalDateTime createdAt) {
+        checkpoint(0, original);
+        at[0] = createdAt;
+        count = 1;
+    }
+
+    /**
+     * Appends a version that replaced {@code previous}, which must be the
+     * newest version so far; equal content is ignored.
+     */
+    void add(String previous, String content, LocalDateTime editedAt) {
+        if (content.equals(previous)) return;
+        if (count == at.length) {
+            int n = count * 2;
+            prefix = Arrays.copyOf(prefix, n);
+            suffix = Arrays.copyOf(suffix, n);
+            middle = Arrays.copyOf(middle, n);
+            at = Arrays.copyOf(at, n);
+        }
+        int v = count++;
+        at[v] = editedAt;
+        if (v % CHECKPOINT_EVERY == 0) {
+            checkpoint(v / CHECKPOINT_EVERY, content);
+        } else {
+            int max = Math.min(previous.length(), content.length());
+            int p = 0;
+            while (p < max && previous.charAt(p) == content.charAt(p)) p++;
+            int s = 0;
+            while (s < max - p && previous.charAt(previous.length() - 1 - s) == content.charAt(content.length() - 1 - s)) s++;
+            prefix[v] = p;
+            suffix[v] = s;
+            middle[v] = content.substring(p, content.length() - s);
+        }
+    }
+
+    /** Number of versions, including the original and the current one. */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Rebuilds one version from the checkpoint at or before it.
+     *
+     * @throws IndexOutOfBoundsException if there is no such version
+     */
+    public String content(int version) {
+        if (version < 0 || version >= count) {
+            throw new IndexOutOfBoundsException("version " + version + " of " + count);
+        }
+        int base = version - version % CHECKPOINT_EVERY;
+        StringBuilder sb = new StringBuilder(checkpoint(base / CHECKPOINT_EVERY));
+        for (int v = base + 1; v <= version; v++) {
+            sb.replace(prefix[v], sb.length() - suffix[v], middle[v]);
+        }
+        return sb.toString();
+    }
+
+    /** When a version was written; version 0 is the post's creation time. */
+    public LocalDateTime writtenAt(int version) {
+        if (version < 0 || version >= count) {
+            throw new IndexOutOfBoundsException("version " + version + " of " + count);
+        }
+        return at[version];
+    }
+
+    /**
+     * Every version, oldest first. Walks the deltas once, so it costs about
+     * as much as rebuilding the newest version.
+     */
+    public List<Revision> revisions() {
+        List<Revision> out = new ArrayList<>(count);
+        StringBuilder sb = new StringBuilder();
+        for (int v = 0; v < count; v++) {
+            if (v % CHECKPOINT_EVERY == 0) {
+                sb.setLength(0);
+                sb.append(checkpoint(v / CHECKPOINT_EVERY));
+            } else {
+                sb.replace(prefix[v], sb.length() - suffix[v], middle[v]);
+            }
+            out.add(new Revision(v, sb.toString(), at[v]));
+        }
+        return out;
+    }
+
+    /**
+     * Bytes held for all versions: compressed checkpoints plus delta text
+     * (counted one byte per char). Compare with the total length of all
+     * versions to see what the encoding saves.
+     */
+    long storedBytes() {
+        long n = 0;
+        for (int c = 0; c * CHECKPOINT_EVERY < count; c++) n += checkpoints[c].length;
+        for (int v = 1; v < count; v++) {
+            if (middle[v] != null) n += middle[v].length();
+        }
+        return n;
+    }
+
+    /** Stores checkpoint {@code c}. */
+    private void checkpoint(int c, String text) {
+        if (c == checkpoints.length) {
+            checkpoints = Arrays.copyOf(checkpoints, c * 2);
+            checkpointLengths = Arrays.copyOf(checkpointLengths, c * 2);
+        }
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        checkpoints[c] = TieredBodyStore.deflate(raw);
+        checkpointLengths[c] = raw.length;
+    }
+
+    /** Reads checkpoint {@code c} back. */
+    private String checkpoint(int c) {
+        return new String(TieredBodyStore.inflate(checkpoints[c], checkpointLengths[c]), StandardCharsets.UTF_8);
+    }
+
+    /** One version of a post's content. */
+    public static final class Revision {
+        private final int version;
+        private final String content;
+        private final LocalDateTime writtenAt;
+
+        Revision(int version, String content, LocalDateTime writtenAt) {
+            this.version = version;
+            this.content = content;
+            this.writtenAt = writtenAt;
+        }
+
+        /** 0 for the original, then 1, 2, ... per edit. */
+        public int getVersion() { return version; }
+
+        /** The full content of this version. */
+        public String getContent() { return content; }
+
+        /** When this version was written. */
+        public LocalDateTime getWrittenAt() { return writtenAt; }
+
+        @Override public String toString() {
+            return "v" + version + " @ " + writtenAt + ": " + content;
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package studentPosts;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Compressed set of post ids, laid out like a roaring bitmap. Ids are split
+ * by their upper 16 bits into chunks of up to 65,536 ids. A chunk holds a
+ * sorted array of its lower 16 bits while it has at most 4,096 of them (two
+ * bytes per id), and switches to a plain 8 KiB bitmap once it has more, so a
+ * set never costs much more than the smaller of the two.
+ *
+ * <p>{@link InMemoryPostRepository} keeps one per visibility state (deleted,
+ * flagged, hidden) and combines them with {@link #and}, {@link #or} and
+ * {@link #andNot}, which work a chunk at a time: two bitmap chunks are
+ * combined 64 ids per step, and an array chunk is merged or probed.</p>
+ *
+ * <p>The set can be changed with {@link #add(int)} and {@link #remove(int)};
+ * the combining operations return new sets and leave their inputs alone.
+ * It is not thread-safe to change. As a {@link java.util.Set} it is
+ * read-only and iterates in id order.</p>
+ *
+ * <p>{@link #with(int, boolean, Object)} instead returns a new set that
+ * shares every chunk but the one it changed, so the repository can publish
+ * its sets as part of an immutable version. It takes the same kind of edit
+ * token as {@link PersistentSortedMap}: a set or chunk copied under a token
+ * is changed in place by later changes under it. A set that shares chunks
+ * with another must only be changed through {@code with}.</p>
+ */
+public final class IdBitmap extends AbstractSet<Integer> {
+
+    /** Most ids an array chunk holds before it becomes a bitmap chunk. */
+    private static final int ARRAY_MAX = 4096;
+
+    /** Longs in a bitmap chunk: 65,536 bits. */
+    private static final int WORDS = 1 << 10;
+
+    /** Ids sharing their upper 16 bits. */
+    private static final class Chunk {
+        Object owner;       // edit token that may change it in place, or null
+        char[] values;      // sorted low bits while words == null
+        long[] words;       // one bit per low value otherwise
+        int cardinality;
+
+        boolean contains(char low) {
+            if (words != null) return (words[low >>> 6] & (1L << low)) != 0;
+            return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+        }
+
+        boolean add(char low) {
+            if (words != null) {
+                long bit = 1L << low;
+                if ((words[low >>> 6] & bit) != 0) return false;
+                words[low >>> 6] |= bit;
+                cardinality++;
+                return true;
+            }
+            int at = Arrays.binarySearch(values, 0, cardinality, low);
+            if (at >= 0) return false;
+            at = -at - 1;
+            if (cardinality == ARRAY_MAX) {
+                words = toWords();
+                values = null;
+                return add(low);
+            }
+            if (cardinality == values.length) values = Arrays.copyOf(values, Math.min(ARRAY_MAX, values.length * 2));
+            System.arraycopy(values, at, values, at + 1, cardinality - at);
+            values[at] = low;
+            cardinality++;
+            return true;
+        }
+
+        boolean remove(char low) {
+            if (words != null) {
+                long bit = 1L << low;
+                if ((words[low >>> 6] & bit) == 0) return false;
+                words[low >>> 6] &= ~bit;
+                if (--cardinality <= ARRAY_MAX) {
+                    Chunk small = fromWords(words);
+                    words = null;
+                    values = small.values;
+                }
+                return true;
+            }
+            int at = Arrays.binarySearch(values, 0, cardinality, low);
+            if (at < 0) return false;
+            System.arraycopy(values, at + 1, values, at, cardinality - at - 1);
+            cardinality--;
+            return true;
+        }
+
+        /** The chunk as a bitmap; a fresh array, never this chunk's own. */
+        long[] toWords() {
+            if (words != null) return words.clone();
+            long[] w = new long[WORDS];
+            for (int i = 0; i < cardinality; i++) w[values[i] >>> 6] |= 1L << values[i];
+            return w;
+        }
+
+        Chunk copy() {
+            Chunk c = new Chunk();
+            c.cardinality = cardinality;
+            if (words != null) c.words = words.clone();
+            else c.values = Arrays.copyOf(values, Math.max(1, cardinality));
+            return c;
+        }
+
+        /** Wraps {@code w} as a chunk in whichever form is smaller. */
+        static Chunk fromWords(long[] w) {
+            Chunk c = new Chunk();
+            for (long word : w) c.cardinality += Long.bitCount(word);
+            if (c.cardinality > ARRAY_MAX) {
+                c.words = w;
+                return c;
+            }
+            c.values = new char[Math.max(1, c.cardinality)];
+            int n = 0;
+            for (int i = 0; i < WORDS; i++) {
+                for (long word = w[i]; word != 0; word &= word - 1) {
+                    c.values[n++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+                }
+            }
+            return c;
+        }
+
+        static Chunk ofValues(char[] values, int n) {
+            Chunk c = new Chunk();
+            c.values = values;
+            c.cardinality = n;
+            return c;
+        }
+    }
+
+    private int[] keys = new int[4];
+    private Chunk[] chunks = new Chunk[4];
+    private int chunkCount = 0;
+    private int size = 0;
+    private Object owner;   // edit token that may change it in place, or null
+
+    /** Creates an empty set. */
+    public IdBitmap() {
+    }
+
+    /** Returns a new set holding {@code ids}. */
+    public static IdBitmap of(Collection<Integer> ids) {
+        IdBitmap out = new IdBitmap();
+        int[] sorted = new int[ids.size()];
+        int n = 0;
+        for (Integer id : ids) sorted[n++] = id;
+        Arrays.sort(sorted, 0, n);
+        for (int i = 0; i < n; i++) out.add(sorted[i]);
+        return out;
+    }
+
+    // ============================================================
+    // MEMBERSHIP
+    // ============================================================
+
+    /** Adds an id; returns whether it was new. */
+    public boolean add(int id) {
+        int at = find(id >>> 16);
+        if (at < 0) {
+            at = -at - 1;
+            Chunk c = new Chunk();
+            c.values = new char[4];
+            insertChunk(at, id >>> 16, c);
+        }
+        boolean added = chunks[at].add((char) id);
+        if (added) size++;
+        return added;
+    }
+
+    /** Removes an id; returns whether it was present. */
+    public boolean remove(int id) {
+        int at = find(id >>> 16);
+        if (at < 0 || !chunks[at].remove((char) id)) return false;
+        size--;
+        if (chunks[at].cardinality == 0) {
+            System.arraycopy(keys, at + 1, keys, at, chunkCount - at - 1);
+            System.arraycopy(chunks, at + 1, chunks, at, chunkCount - at - 1);
+            chunks[--chunkCount] = null;
+        }
+        return true;
+    }
+
+    /** Adds {@code id} if {@code present}, otherwise removes it. */
+    public void set(int id, boolean present) {
+        if (present) add(id);
+        else remove(id);
+    }
+
+    /**
+     * This set with {@code id} added if {@code present}, else removed. Only
+     * the chunk holding it is copied, unless it belongs to {@code edit};
+     * this set is left unchanged unless it belongs to {@code edit} itself.
+     */
+    public IdBitmap with(int id, boolean present, Object edit) {
+        if (contains(id) == present) return this;
+        IdBitmap out = this;
+        if (edit == null || owner != edit) {
+            out = new IdBitmap();
+            out.keys = Arrays.copyOf(keys, Math.max(4, chunkCount + 1));
+            out.chunks = Arrays.copyOf(chunks, Math.max(4, chunkCount + 1));
+            out.chunkCount = chunkCount;
+            out.size = size;
+            out.owner = edit;
+        }
+        int at = out.find(id >>> 16);
+        if (at >= 0 && (edit == null || out.chunks[at].owner != edit)) {
+            Chunk c = out.chunks[at].copy();
+            c.owner = edit;
+            out.chunks[at] = c;
+        }
+        if (present) {
+            if (at < 0) {
+                Chunk c = new Chunk();
+                c.values = new char[4];
+                c.owner = edit;
+                out.insertChunk(-at - 1, id >>> 16, c);
+            }
+            out.add(id);
+        } else {
+            out.remove(id);
+        }
+        return out;
+    }
+
+    /** Whether the id is in the set. */
+    public boolean contains(int id) {
+        int at = find(id >>> 16);
+        return at >= 0 && chunks[at].contains((char) id);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && contains(((Integer) o).intValue());
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // ============================================================
+    // COMBINING
+    // ============================================================
+
+    /** Ids in both this set and {@code other}. */
+    public IdBitmap and(IdBitmap other) {
+        IdBitmap out = new IdBitmap();
+        int i = 0, j = 0;
+        while (i < chunkCount && j < other.chunkCount) {
+            int ka = keys[i], kb = other.keys[j];
+            if (ka < kb) { i++; continue; }
+            if (kb < ka) { j++; continue; }
+            Chunk a = chunks[i++], b = other.chunks[j++];
+            Chunk c;
+            if (a.words != null && b.words != null) {
+                long[] w = a.words.clone();
+                for (int k = 0; k < WORDS; k++) w[k] &= b.words[k];
+                c = Chunk.fromWords(w);
+            } else {
+                Chunk small = (a.words == null) ? a : b;
+                Chunk large = (small == a) ? b : a;
+                char[] v = new char[Math.max(1, small.cardinality)];
+                int n = 0;
+                for (int k = 0; k < small.cardinality; k++) {
+                    if (large.contains(small.values[k])) v[n++] = small.values[k];
+                }
+                c = Chunk.ofValues(v, n);
+            }
+            out.append(ka, c);
+        }
+        return out;
+    }
+
+    /** Ids in this set, {@code other}, or both. */
+    public IdBitmap or(IdBitmap other) {
+        IdBitmap out = new IdBitmap();
+        int i = 0, j = 0;
+        while (i < chunkCount || j < other.chunkCount) {
+            int ka = (i < chunkCount) ? keys[i] : Integer.MAX_VALUE;
+            int kb = (j < other.chunkCount) ? other.keys[j] : Integer.MAX_VALUE;
+            if (ka < kb) {
+                out.append(ka, chunks[i++].copy());
+                continue;
+            }
+            if (kb < ka) {
+                out.append(kb, other.chunks[j++].copy());
+                continue;
+            }
+            Chunk a = chunks[i++], b = other.chunks[j++];
+            Chunk c;
+            if (a.words == null && b.words == null && a.cardinality + b.cardinality <= ARRAY_MAX) {
+                char[] v = new char[Math.max(1, a.cardinality + b.cardinality)];
+                int n = 0, x = 0, y = 0;
+                while (x < a.cardinality || y < b.cardinality) {
+                    if (y >= b.cardinality || (x < a.cardinality && a.values[x] < b.values[y])) v[n++] = a.values[x++];
+                    else if (x >= a.cardinality || b.values[y] < a.values[x]) v[n++] = b.values[y++];
+                    else { v[n++] = a.values[x++]; y++; }
+                }
+                c = Chunk.ofValues(v, n);
+            } else {
+                long[] w = a.toWords();
+                if (b.words != null) {
+                    for (int k = 0; k < WORDS; k++) w[k] |= b.words[k];
+                } else {
+                    for (int k = 0; k < b.cardinality; k++) w[b.values[k] >>> 6] |= 1L << b.values[k];
+                }
+                c = Chunk.fromWords(w);
+            }
+            out.append(ka, c);
+        }
+        return out;
+    }
+
+    /** Ids in this set but not in {@code other}. */
+    public IdBitmap andNot(IdBitmap other) {
+        IdBitmap out = new IdBitmap();
+        int j = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            int ka = keys[i];
+            while (j < other.chunkCount && other.keys[j] < ka) j++;
+            Chunk a = chunks[i];
+            if (j >= other.chunkCount || other.keys[j] != ka) {
+                out.append(ka, a.copy());
+                continue;
+            }
+            Chunk b = other.chunks[j];
+            Chunk c;
+            if (a.words == null) {
+                char[] v = new char[Math.max(1, a.cardinality)];
+                int n = 0;
+                for (int k = 0; k < a.cardinality; k++) {
+                    if (!b.contains(a.values[k])) v[n++] = a.values[k];
+                }
+                c = Chunk.ofValues(v, n);
+            } else {
+                long[] w = a.words.clone();
+                if (b.words != null) {
+                    for (int k = 0; k < WORDS; k++) w[k] &= ~b.words[k];
+                } else {
+                    for (int k = 0; k < b.cardinality; k++) w[b.values[k] >>> 6] &= ~(1L << b.values[k]);
+                }
+                c = Chunk.fromWords(w);
+            }
+            out.append(ka, c);
+        }
+        return out;
+    }
+
+    // ============================================================
+    // ITERATION
+    // ============================================================
+
+    /** Iterates the ids in ascending order. */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int chunk = 0;
+            private int pos = 0;        // index into values, or next bit to test
+
+            @Override public boolean hasNext() {
+                while (chunk < chunkCount) {
+                    Chunk c = chunks[chunk];
+                    if (c.words == null) {
+                        if (pos < c.cardinality) return true;
+                    } else {
+                        while (pos < (WORDS << 6)) {
+                            long word = c.words[pos >>> 6] >>> pos;
+                            if (word != 0) {
+                                pos += Long.numberOfTrailingZeros(word);
+                                return true;
+                            }
+                            pos = (pos | 63) + 1;
+                        }
+                    }
+                    chunk++;
+                    pos = 0;
+                }
+                return false;
+            }
+
+            @Override public int nextInt() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Chunk c = chunks[chunk];
+                int low = (c.words == null) ? c.values[pos] : pos;
+                pos++;
+                return (keys[chunk] << 16) | low;
+            }
+        };
+    }
+
+    // ============================================================
+    // INTERNAL HELPERS
+    // ============================================================
+
+    /** Index of the chunk for {@code key}, or {@code -(insertion point) - 1}. */
+    private int find(int key) {
+        if (chunkCount > 0 && keys[chunkCount - 1] == key) return chunkCount - 1;
+        return Arrays.binarySearch(keys, 0, chunkCount, key);
+    }
+
+    private void insertChunk(int at, int key, Chunk c) {
+        if (chunkCount == keys.length) {
+            keys = Arrays.copyOf(keys, chunkCount * 2);
+            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+        }
+        System.arraycopy(keys, at, keys, at + 1, chunkCount - at);
+        System.arraycopy(chunks, at, chunks, at + 1, chunkCount - at);
+        keys[at] = key;
+        chunks[at] = c;
+        chunkCount++;
+    }
+
+    /** Adds a chunk whose key is above every key so far; drops empty ones. */
+    private void append(int key, Chunk c) {
+        if (c.cardinality == 0) return;
+        insertChunk(chunkCount, key, c);
+        size += c.cardinality;
+    }
+}
@@ -3,19 +3,114 @@ package studentPosts;
 import entityClasses.Post;
 import entityClasses.Post.Moderation;
 
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A simple in-memory repository used for storing and retrieving Post objects.
  * This class has no external dependencies and is mainly used for testing,
- * prototypes, and assignments. All posts are kept in a HashMap while the
- * program is running.
+ * prototypes, and assignments. All posts are kept in a
+ * {@link PersistentPostMap} while the program is running.
+ *
+ * <p>The repository is shared through {@code FoundationsMain.postRepo}, so it
+ * is safe to use from several threads. Each write builds the next version
+ * of the post map together with every index over it, and publishes the
+ * whole version at once. {@link #findById(int)}, {@link #findAll()},
+ * {@link #snapshot()} and searches take the current version and work on it
+ * with no lock and no copying, so the posts and indexes they see are never
+ * out of step. A slow search never holds up a write, and a write never
+ * holds up a search; writers only wait for each other.</p>
+ *
+ * <p>Search results are kept in a {@link SearchCache}. Every write bumps
+ * {@link #generation()}, and a cached result is only used while the
+ * generation it was computed at is still current.</p>
+ *
+ * <p>Open screens can {@link #subscribe(PostChange.Listener)} to every write
+ * and update what they show from the old and new version of the post,
+ * rather than reloading.</p>
+ *
+ * <p>Post bodies live in a {@link TieredBodyStore}: recently read ones as
+ * Strings, older ones as UTF-8 bytes or compressed. Stored posts read their
+ * content through it, so callers see no difference.</p>
  */
-public class InMemoryPostRepository {
+public class InMemoryPostRepository implements PostRepository {
 
-    /** Stores all posts by their ID. */
-    private final Map<Integer, Post> store = new HashMap<>();
+    /**
+     * The current version of the posts and their indexes; replaced by every
+     * write, never changed once published.
+     */
+    private volatile State state = State.empty();
+
+    /**
+     * The next version while a write builds it, or null. Only the writer
+     * holding the write lock touches it; it is also the edit token of every
+     * index node copied for it (see {@link PersistentSortedMap}).
+     */
+    private State draft;
+
+    /**
+     * Changes made by the write in progress, as (before, after) pairs; passed
+     * on once its version is published, all stamped with its generation.
+     */
+    private final List<Post[]> pending = new ArrayList<>();
+
+    /** Edit history entries of the write in progress, recorded once its version is published. */
+    private final List<Runnable> pendingHistory = new ArrayList<>();
+
+    /**
+     * Post id -> the body it had before the write in progress replaced it
+     * (null for a new post), so a write that fails can put them back.
+     */
+    private final Map<Integer, Post.Body> replacedBodies = new HashMap<>();
+
+    /**
+     * Orders writers, and guards the edit histories; searches and other
+     * reads of {@link #state} never take it.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Highest post id seen so far; {@link #nextId()} hands out the next one. */
+    private final AtomicInteger lastId = new AtomicInteger();
+
+    /** Shared instances of author and thread names. */
+    private final SymbolTable symbols = new SymbolTable();
+
+    /** Recent search results, valid only for the generation they were computed at. */
+    private volatile SearchCache searchCache = new SearchCache(DEFAULT_SEARCH_CACHE_SIZE);
+
+    /** Listeners told about each write, off the writer's thread. */
+    private final ChangeFeed changes = new ChangeFeed();
+
+    /** Post id -> its earlier contents; only posts that were edited have one. */
+    private final Map<Integer, EditHistory> histories = new HashMap<>();
+
+    /** Content of the stored posts, kept compact by how recently it was read. */
+    private volatile TieredBodyStore bodies =
+            new TieredBodyStore(TieredBodyStore.DEFAULT_HOT_LIMIT, TieredBodyStore.DEFAULT_WARM_LIMIT);
+
+    /** Default store size at which keyword scans switch to a parallel scan. */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 50_000;
+
+    /** Default number of search results kept by the search cache. */
+    public static final int DEFAULT_SEARCH_CACHE_SIZE = 256;
+
+    /** Store or candidate-set size at which search scans in parallel. */
+    private volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    /** Result order used by search: newest first, ties broken by higher id. */
+    private static final Comparator<Post> NEWEST_FIRST =
+            Comparator.comparing(Post::getCreatedAt).thenComparingInt(Post::getId).reversed();
 
     // ============================================================
     // CREATE
@@ -23,12 +118,131 @@ public class InMemoryPostRepository {
 
     /**
      * Creates a new Post and adds it to the repository.
-     * The Post class handles all validation.
+     * The Post class handles all validation. The author and thread names
+     * are shared with every other post that uses them.
      */
     public Post create(int id, String author, String thread, String content) {
-        Post p = Post.createNew(id, author, thread, content);
-        store.put(id, p);
-        return p;
+        Post p = Post.createNew(id, symbol(author), symbol(thread), content);
+        return write(() -> put(p));
+    }
+
+    /**
+     * Creates a new Post with the next free id. Safe to call from several
+     * threads at once; every caller gets a different id.
+     */
+    public Post create(String author, String thread, String content) {
+        return create(nextId(), author, thread, content);
+    }
+
+    /**
+     * Imports many posts at once, keeping their ids, e.g. when a board is
+     * loaded from an export. The write lock is taken once for the whole
+     * batch, so searches see either none or all of it. A post with the id
+     * of a stored one replaces it. Author and thread names are shared as in
+     * {@link #create(int, String, String, String)}.
+     *
+     * @return the stored posts by id, in the order given
+     */
+    public Map<Integer, Post> createAll(Collection<Post> posts) {
+        List<Post> shared = new ArrayList<>(posts.size());
+        for (Post p : posts) shared.add(shared(p));
+        return write(() -> {
+            Map<Integer, Post> out = new LinkedHashMap<>();
+            for (Post p : shared) {
+                out.put(p.getId(), put(p));
+            }
+            return out;
+        });
+    }
+
+    /**
+     * Reserves and returns the next unused post id.
+     */
+    public int nextId() {
+        return lastId.incrementAndGet();
+    }
+
+    /**
+     * Sets how many posts a search must have to check before it splits the
+     * work into fork-join tasks across all cores. Below it, one thread is
+     * faster. Use {@link Integer#MAX_VALUE} to never scan in parallel.
+     */
+    public void setParallelThreshold(int threshold) {
+        this.parallelThreshold = Math.max(1, threshold);
+    }
+
+    /** The size at which search starts scanning in parallel. */
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Replaces the search cache with an empty one holding at most
+     * {@code entries} results. 0 turns caching off.
+     */
+    public void setSearchCacheSize(int entries) {
+        this.searchCache = new SearchCache(entries);
+    }
+
+    /** The search cache, for its hit and miss counts. */
+    public SearchCache getSearchCache() {
+        return searchCache;
+    }
+
+    /**
+     * Keeps at most {@code hotLimit} bodies as Strings and {@code warmLimit}
+     * as UTF-8 bytes, compressing the rest. Every stored body is moved into
+     * the new store, starting hot, and settled to the new limits right away.
+     */
+    public void setBodyTiers(int hotLimit, int warmLimit) {
+        TieredBodyStore next = new TieredBodyStore(hotLimit, warmLimit);
+        write(() -> {
+            PersistentPostMap snap = draft.store;
+            for (Post p : snap.values()) {
+                snap = snap.with(p.withBody(next.put(p.getId(), p.getRawContent())));
+            }
+            draft.store = snap;
+            bodies = next;
+            return null;
+        });
+        next.maintain();
+    }
+
+    /** The body store, for how many bodies are in each tier. */
+    public TieredBodyStore getBodyStore() {
+        return bodies;
+    }
+
+    /**
+     * Registers a listener for every later write (created, edited, moderated
+     * or deleted post, with the version before and after). Changes arrive
+     * on a background thread in write order; the changes of one batch share
+     * the generation it published, and the last of them is marked
+     * ({@link PostChange#isLastOfWrite()}). Writers never wait for
+     * listeners; one that falls 256 changes
+     * behind misses some and is told through
+     * {@link PostChange.Listener#onOverflow()}.
+     *
+     * @return handle that unsubscribes the listener when closed
+     */
+    public AutoCloseable subscribe(PostChange.Listener listener) {
+        return subscribe(listener, ChangeFeed.DEFAULT_BUFFER);
+    }
+
+    /**
+     * {@link #subscribe(PostChange.Listener)} with a buffer of at least
+     * {@code buffer} changes.
+     */
+    public AutoCloseable subscribe(PostChange.Listener listener, int buffer) {
+        return changes.subscribe(listener, buffer);
+    }
+
+    /**
+     * Number of writes so far. Two reads that see the same generation saw
+     * the same posts.
+     */
+    public long generation() {
+        return state.version;
     }
 
     // ============================================================
@@ -37,50 +251,154 @@ public class InMemoryPostRepository {
 
     /** Returns the post with the given ID, if it exists. */
     public Optional<Post> findById(int id) {
-        return Optional.ofNullable(store.get(id));
+        return Optional.ofNullable(state.store.get(id));
     }
 
-    /** Returns a list of all posts currently stored. */
+    /**
+     * Returns every post currently stored, as a read-only view of the
+     * current version. Taking it is constant time; later writes do not
+     * show up in it. Indexing into it copies the posts into an array once.
+     */
     public List<Post> findAll() {
-        return new ArrayList<>(store.values());
+        return state.store.asList();
+    }
+
+    /**
+     * Returns the current version of the post map. It is immutable, so it
+     * stays consistent however long the caller holds on to it.
+     */
+    public PersistentPostMap snapshot() {
+        return state.store;
     }
 
     /**
      * Finds all posts that belong to the given thread name.
-     * Thread matching is case-insensitive.
+     * Thread matching is case-insensitive. The thread index is used,
+     * so the cost depends on the size of the thread, not the repository.
      */
     public List<Post> findByThread(String thread) {
         if (thread == null) return List.of();
-        String t = thread.toLowerCase();
 
-        return store.values().stream()
-                .filter(p -> p.getThread().toLowerCase().equals(t))
+        State s = state;
+        return s.thread(threadKey(thread)).stream()
+                .map(s.store::get)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Returns one page of the posts written by {@code author}, newest first,
+     * deleted and moderated ones included. Author matching is
+     * case-insensitive. The author index is walked directly, so the cost
+     * depends on the page size and that author's posts, not the repository.
+     *
+     * @param after id of the last post of the previous page, or null
+     * @param limit page size; 0 returns all of them
+     * @throws NoSuchElementException if {@code after} is not a known post id
+     */
+    public List<Post> findByAuthor(String author, Integer after, int limit) {
+        if (author == null) return List.of();
+
+        State s = state;
+        PersistentSortedMap<OrderKey, Boolean> keys = s.byAuthor.get(Post.fold(author.trim()));
+        if (keys == null) return List.of();
+        OrderKey from = (after == null) ? null : OrderKey.of(require(s, after));
+        Stream<Post> page = keys.keys(from, false, null, false).map(k -> s.store.get(k.id));
+        if (limit > 0) page = page.limit(limit);
+        return page.collect(Collectors.toList());
+    }
+
+    /** Number of posts written by {@code author} (case-insensitive). */
+    public int countByAuthor(String author) {
+        if (author == null) return 0;
+        PersistentSortedMap<OrderKey, Boolean> keys = state.byAuthor.get(Post.fold(author.trim()));
+        return (keys == null) ? 0 : keys.size();
+    }
+
+    /**
+     * Every version of the post's content, oldest first, for staff to audit
+     * edits. Edits are kept as deltas (see {@link EditHistory}), so a long
+     * history of small fixes costs little more than the post itself.
+     *
+     * @throws NoSuchElementException if no post has that id
+     */
+    public List<EditHistory.Revision> history(int id) {
+        return read(() -> {
+            Post p = require(state, id);
+            EditHistory h = histories.get(id);
+            if (h == null) return List.of(new EditHistory.Revision(0, p.getRawContent(), writtenAt(p)));
+            return h.revisions();
+        });
+    }
+
+    /**
+     * The content of one version of a post, rebuilt from the nearest
+     * checkpoint without materialising the others.
+     *
+     * @throws NoSuchElementException if no post has that id
+     * @throws IndexOutOfBoundsException if the post has no such version
+     */
+    public String contentAt(int id, int version) {
+        return read(() -> {
+            Post p = require(state, id);
+            EditHistory h = histories.get(id);
+            int versions = (h == null) ? 1 : h.size();
+            if (version == versions - 1) return p.getRawContent();
+            if (h == null) throw new IndexOutOfBoundsException("version " + version + " of 1");
+            return h.content(version);
+        });
+    }
+
     // ============================================================
     // UPDATE
     // ============================================================
 
+    /**
+     * Stores {@code updated} as the new version of the post with its id,
+     * e.g. a copy made with {@link Post#withModeration}. The indexes follow
+     * whatever changed.
+     *
+     * @throws NoSuchElementException if no post has that id
+     */
+    public Post update(Post updated) {
+        Post next = shared(updated);
+        return write(() -> {
+            require(draft, next.getId());
+            return put(next);
+        });
+    }
+
     /**
      * Updates the content of a post by creating a new edited copy.
      * The original post is replaced in the repository.
      */
     public Post updateContent(int id, String newContent) {
-        Post cur = require(id);
-        Post edited = cur.withContent(newContent);
-        store.put(id, edited);
-        return edited;
+        return change(id, cur -> cur.withContent(newContent));
+    }
+
+    /**
+     * Moves a post to another thread. The thread index is updated
+     * so the post is listed under its new thread right away.
+     */
+    public Post moveToThread(int id, String newThread) {
+        return change(id, cur -> cur.withThread(symbol(newThread)));
     }
 
     /**
      * Updates the moderation status (NORMAL, FLAGGED, HIDDEN).
      */
     public Post moderate(int id, Moderation m) {
-        Post cur = require(id);
-        Post mod = cur.withModeration(m);
-        store.put(id, mod);
-        return mod;
+        return change(id, cur -> cur.withModeration(m));
+    }
+
+    /**
+     * Sets the moderation status of many posts under one write lock, e.g. to
+     * hide a wave of spam in one go.
+     *
+     * @return the updated post for each id, or empty for ids that are not
+     *         stored; in the order given
+     */
+    public Map<Integer, Optional<Post>> moderateAll(Collection<Integer> ids, Moderation m) {
+        return changeAll(ids, cur -> cur.withModeration(m));
     }
 
     // ============================================================
@@ -92,10 +410,17 @@ public class InMemoryPostRepository {
      * but is marked as deleted so its content is hidden.
      */
     public Post softDelete(int id) {
-        Post cur = require(id);
-        Post tomb = cur.softDeleted();
-        store.put(id, tomb);
-        return tomb;
+        return change(id, Post::softDeleted);
+    }
+
+    /**
+     * Soft-deletes many posts under one write lock.
+     *
+     * @return the deleted post for each id, or empty for ids that are not
+     *         stored; in the order given
+     */
+    public Map<Integer, Optional<Post>> softDeleteAll(Collection<Integer> ids) {
+        return changeAll(ids, Post::softDeleted);
     }
 
     // ============================================================
@@ -105,32 +430,205 @@ public class InMemoryPostRepository {
     /**
      * Searches through the repository using a SearchSpec.
      * You can filter by keyword, thread, and whether deleted posts
-     * should be included. Results are sorted newest first.
+     * should be included. Results are sorted newest first, or by
+     * relevance to the keyword when {@code order} is RELEVANCE.
+     * A keyword is first narrowed through the inverted index, so only
+     * posts that share its tokens are checked.
+     *
+     * <p>Set {@code limit} to get one page at a time, and pass the id of
+     * the last post of a page as {@code after} to get the next one. Without
+     * a keyword or thread, a page is read straight off the newest-first
+     * index, so it costs about the page size rather than the store size.</p>
+     *
+     * <p>Deleted, flagged and hidden posts are tracked in {@link IdBitmap}s.
+     * {@code includeDeleted}, {@code excludeHidden} and {@code moderation}
+     * are answered from those bitmaps by post id: combined a chunk at a time
+     * when the candidates come from a bitmap, else one bit test per id, so
+     * no post is loaded just to check its state.</p>
+     *
+     * <p>With {@code fuzzy} set, a post also matches if every word of the
+     * keyword is within a few typos of one of its words (see
+     * {@link InvertedIndex#fuzzyCandidates(String)}).</p>
+     *
+     * <p>{@code where} takes a {@link PostQuery} such as
+     * {@code author:alice moderation:FLAGGED after:2025-10-01}. Its plan
+     * supplies a candidate set from the most selective index, or a date
+     * range to walk, and the whole query is checked on each post.</p>
+     *
+     * <p>A keyword the index cannot narrow (e.g. only punctuation), or one
+     * that matches a very large candidate set, is checked against every post.
+     * Once that is at least {@link #getParallelThreshold()} posts, the scan is
+     * split into fork-join tasks that each keep their own top {@code limit}
+     * newest matches, and those are merged.</p>
+     *
+     * <p>Results are cached by the normalized spec until the next write, so
+     * repeating a search (such as opening the same thread again) is a map
+     * lookup. The returned list is read-only.</p>
+     *
+     * <p>A search takes no lock: it runs on the version current when it
+     * starts, posts and indexes alike, however many writes publish newer
+     * ones meanwhile.</p>
+     *
+     * @throws NoSuchElementException if {@code after} is not a known post id
+     * @throws IllegalArgumentException if {@code where} is not a valid query
      */
     public List<Post> search(SearchSpec spec) {
+        State s = state;
+        SearchCache cache = searchCache;
+        String key = SearchCache.key(spec);
+        List<Post> cached = cache.get(key, s.version);
+        if (cached != null) return cached;
+
+        List<Post> results = List.copyOf(doSearch(s, spec));
+        cache.put(key, s.version, results);
+        return results;
+    }
+
+    /** The body of {@link #search(SearchSpec)}, run on one version. */
+    private List<Post> doSearch(State s, SearchSpec spec) {
+        PersistentPostMap snap = s.store;
 
         String q = (spec == null || spec.query == null)
-                ? null : spec.query.toLowerCase();
+                ? null : Post.fold(spec.query);
 
         String t = (spec == null || spec.thread == null)
-                ? null : spec.thread.toLowerCase();
+                ? null : Post.fold(spec.thread);
 
         boolean includeDeleted = (spec != null && spec.includeDeleted);
+        Moderation moderation = (spec == null) ? null : spec.moderation;
 
-        return store.values().stream()
-                .filter(p -> includeDeleted || !p.isDeleted())
-                .filter(p -> t == null || p.getThread().toLowerCase().equals(t))
-                .filter(p -> {
-                    if (q == null) return true;
-                    return p.getAuthor().toLowerCase().contains(q)
-                        || p.getThread().toLowerCase().contains(q)
-                        || p.getRawContent().toLowerCase().contains(q);
-                })
-                .sorted(
-                        Comparator.comparing(Post::getCreatedAt, Comparator.reverseOrder())
-                                  .thenComparingInt(Post::getId).reversed()
-                )
-                .collect(Collectors.toList());
+        // Visibility as bitmaps: the ids to leave out, and for a moderation
+        // filter the only ids allowed. NORMAL has no bitmap of its own; it is
+        // everything that is neither flagged nor hidden.
+        IdBitmap excluded = includeDeleted ? null : s.deletedIds;
+        if (spec != null && spec.excludeHidden) excluded = union(excluded, s.hiddenIds);
+        if (moderation == Moderation.NORMAL) excluded = union(excluded, s.flaggedIds.or(s.hiddenIds));
+        IdBitmap only = (moderation == null) ? null : s.moderationIds(moderation);
+
+        // Fuzzy matches are exact sets from the index; the plain substring
+        // matches are still found as well, through the usual candidates.
+        Set<Integer> fuzzyIds = (q == null || !spec.fuzzy) ? null : s.index.fuzzyCandidates(q);
+
+        // Start from the smallest index set available; the filters below
+        // still check every condition on the posts that come out of it.
+        Set<Integer> ids = (t == null) ? null : s.thread(t);
+        Set<Integer> keywordIds = (q == null) ? null : s.index.candidates(q);
+        // A single-word keyword is answered by the index alone, so its
+        // candidates are not read and folded again.
+        Set<Integer> exactIds = (keywordIds != null && InvertedIndex.isExact(q)) ? keywordIds : null;
+        if (fuzzyIds != null && keywordIds != null) {
+            keywordIds = new HashSet<>(keywordIds);
+            keywordIds.addAll(fuzzyIds);
+        }
+        if (keywordIds != null && (ids == null || keywordIds.size() < ids.size())) {
+            ids = keywordIds;
+        }
+        PostQuery.Plan plan = (spec == null || spec.where == null || spec.where.isBlank())
+                ? null : PostQuery.parse(spec.where).plan(s);
+        if (plan != null && plan.ids != null && (ids == null || plan.ids.size() < ids.size())) {
+            ids = plan.ids;
+        }
+        if (only != null && (ids == null || only.size() < ids.size())) {
+            ids = only;
+        }
+        if (ids instanceof IdBitmap) {
+            // Candidates from a state bitmap: settle visibility bitwise.
+            IdBitmap visible = (IdBitmap) ids;
+            if (only != null && visible != only) visible = visible.and(only);
+            if (excluded != null) visible = visible.andNot(excluded);
+            ids = visible;
+            only = null;
+            excluded = null;
+        }
+        // Anything else is checked by id against the bitmaps, one bit test
+        // each; turning a large hash set into a bitmap first costs more.
+        IdBitmap hide = excluded;
+        IdBitmap keep = only;
+        int limit = (spec == null) ? 0 : spec.limit;
+        OrderKey afterKey = (spec == null || spec.after == null)
+                ? null : OrderKey.of(require(s, spec.after));
+
+        Predicate<Post> matches = p -> (hide == null || !hide.contains(p.getId()))
+                && (keep == null || keep.contains(p.getId()))
+                && (t == null || p.getFoldedThread().equals(t))
+                && (q == null || (exactIds != null ? exactIds.contains(p.getId()) : p.containsFolded(q))
+                    || (fuzzyIds != null && fuzzyIds.contains(p.getId())))
+                && (plan == null || plan.test(p));
+
+        List<String> terms = (q == null || spec.order != SearchSpec.Order.RELEVANCE)
+                ? List.of() : InvertedIndex.tokenize(q);
+        if (!terms.isEmpty()) {
+            return ranked(s, ids, matches, terms, spec.after, limit);
+        }
+
+        Stream<Post> ordered;
+        boolean ranged = plan != null && (plan.from != null || plan.to != null);
+        if (ids == null && !ranged && (q != null || plan != null) && snap.size() >= parallelThreshold) {
+            // Unindexed keyword over a large store: scan every subtree in parallel.
+            return StreamSupport.stream(snap.spliterator(), true)
+                    .filter(matches)
+                    .filter(p -> afterKey == null || OrderKey.of(p).compareTo(afterKey) > 0)
+                    .collect(TopK.collector(limit, NEWEST_FIRST));
+        } else if (ids != null && ids.size() >= parallelThreshold) {
+            // Broad keyword or thread: check the candidates in parallel.
+            return ids.parallelStream().map(snap::get).filter(Objects::nonNull).filter(matches)
+                    .filter(p -> afterKey == null || OrderKey.of(p).compareTo(afterKey) > 0)
+                    .collect(TopK.collector(limit, NEWEST_FIRST));
+        } else if (ids == null) {
+            // No index narrows the search: walk the posts already in order
+            // (only the query's date range, if it has one) and stop as soon
+            // as the page is full.
+            Stream<OrderKey> keys = walk(s, afterKey,
+                    (plan == null || plan.to == null) ? null : new OrderKey(plan.to, Integer.MIN_VALUE),
+                    (plan == null || plan.from == null) ? null : new OrderKey(plan.from, Integer.MIN_VALUE));
+            ordered = keys
+                    .filter(k -> hide == null || !hide.contains(k.id))
+                    .map(k -> snap.get(k.id)).filter(Objects::nonNull).filter(matches);
+        } else {
+            // Only the candidates are ranked, and only a page of them is kept.
+            return ids.stream().map(snap::get).filter(Objects::nonNull).filter(matches)
+                    .filter(p -> afterKey == null || OrderKey.of(p).compareTo(afterKey) > 0)
+                    .collect(TopK.collector(limit, NEWEST_FIRST));
+        }
+        if (limit > 0) ordered = ordered.limit(limit);
+        return ordered.collect(Collectors.toList());
+    }
+
+    /**
+     * The keys of {@link State#newestFirst} after both the page cursor and
+     * the {@code before:} bound (whichever comes later; both exclusive), up
+     * to the {@code after:} bound (inclusive). Each may be null. One range is
+     * read off the whole index, so a start past the end just yields nothing.
+     */
+    private static Stream<OrderKey> walk(State s, OrderKey cursor, OrderKey before, OrderKey after) {
+        OrderKey start = cursor;
+        if (before != null && (start == null || before.compareTo(start) > 0)) start = before;
+        return s.newestFirst.keys(start, false, after, true);
+    }
+
+    /**
+     * Relevance-ordered search: every matching post is scored with BM25
+     * ({@link InvertedIndex#score}) and the best {@code limit} are kept in a
+     * bounded heap, so the matches are never fully sorted. Equal scores fall
+     * back to newest first. The {@code after} cursor is re-scored so the next
+     * page starts right below it. A keyword without any word to score is
+     * simply listed newest first.
+     */
+    private List<Post> ranked(State version, Set<Integer> ids, Predicate<Post> matches,
+                              List<String> terms, Integer after, int limit) {
+        PersistentPostMap snap = version.store;
+        InvertedIndex index = version.index;
+        Scored cursor = (after == null) ? null : new Scored(require(version, after), index.score(after, terms));
+        boolean parallel = (ids == null ? snap.size() : ids.size()) >= parallelThreshold;
+
+        Stream<Post> pool = (ids == null)
+                ? StreamSupport.stream(snap.spliterator(), parallel)
+                : (parallel ? ids.parallelStream() : ids.stream()).map(snap::get).filter(Objects::nonNull);
+        return pool.filter(matches)
+                .map(p -> new Scored(p, index.score(p.getId(), terms)))
+                .filter(s -> cursor == null || BEST_FIRST.compare(s, cursor) > 0)
+                .collect(TopK.collector(limit, BEST_FIRST))
+                .stream().map(s -> s.post).collect(Collectors.toList());
     }
 
     // ============================================================
@@ -138,11 +636,325 @@ public class InMemoryPostRepository {
     // ============================================================
 
     /**
-     * Returns the post if it exists, otherwise throws an exception.
-     * This makes certain update operations easier to implement.
+     * Replaces a post with a changed copy, atomically with respect to other
+     * writers, so two concurrent edits of the same post cannot lose one.
+     */
+    private Post change(int id, UnaryOperator<Post> how) {
+        return write(() -> put(how.apply(require(draft, id))));
+    }
+
+    /**
+     * {@link #change} for a batch: one write lock for all ids. Unknown ids
+     * are reported rather than thrown, so one bad id does not undo the rest.
+     */
+    private Map<Integer, Optional<Post>> changeAll(Collection<Integer> ids, UnaryOperator<Post> how) {
+        return write(() -> {
+            Map<Integer, Optional<Post>> out = new LinkedHashMap<>();
+            for (int id : ids) {
+                Post cur = draft.store.get(id);
+                if (cur == null) {
+                    out.put(id, Optional.empty());
+                    continue;
+                }
+                out.put(id, Optional.of(put(how.apply(cur))));
+            }
+            return out;
+        });
+    }
+
+    /** {@code a} or {@code b}, where {@code a} may be null for "none". */
+    private static IdBitmap union(IdBitmap a, IdBitmap b) {
+        return (a == null) ? b : a.or(b);
+    }
+
+    /** Runs a read of the edit histories under the shared lock. */
+    private <T> T read(Supplier<T> body) {
+        lock.readLock().lock();
+        try {
+            return body.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a write under the exclusive lock. The write changes {@link #draft},
+     * a copy of the current version, which is published only when the write
+     * completes; its history entries are recorded then, and its changes go to
+     * the listeners after that, so a listener that searches finds them. A
+     * write that throws is dropped whole: the draft, its history entries and
+     * its changes are discarded and the bodies it replaced are put back.
+     */
+    private <T> T write(Supplier<T> body) {
+        lock.writeLock().lock();
+        TieredBodyStore bodiesBefore = bodies;
+        try {
+            draft = state.next();
+            T result = body.get();
+            state = draft;
+            for (Runnable r : pendingHistory) r.run();
+            for (int i = 0; i < pending.size(); i++) {
+                Post[] c = pending.get(i);
+                changes.publish(PostChange.of(c[0], c[1], state.version, i == pending.size() - 1));
+            }
+            return result;
+        } catch (RuntimeException | Error e) {
+            if (bodies != bodiesBefore) {
+                bodies = bodiesBefore;
+            } else {
+                replacedBodies.forEach(bodies::restore);
+            }
+            throw e;
+        } finally {
+            draft = null;
+            pending.clear();
+            pendingHistory.clear();
+            replacedBodies.clear();
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stores a new or replacement version of a post in {@link #draft} and
+     * updates its indexes. Every write goes through here so the indexes
+     * never fall behind. Callers must be inside {@link #write}.
+     *
+     * @return the version stored, which reads its content from {@link #bodies}
+     */
+    private Post put(Post p) {
+        State d = draft;
+        d.version++;
+        Post old = d.store.get(p.getId());
+        // A copy that kept the text (moderation, delete) keeps its body and
+        // its index entries; reading the text could inflate a cold body.
+        boolean sameText = p.sharesContentWith(old);
+
+        // The history starts at the first edit, so unedited posts cost nothing.
+        // The text being replaced is read from the old post, so the history
+        // keeps no copy of the current version.
+        if (old != null && !sameText) {
+            String previous = old.getRawContent();
+            String content = p.getRawContent();
+            if (!previous.equals(content)) {
+                int id = p.getId();
+                LocalDateTime createdAt = writtenAt(old);
+                LocalDateTime editedAt = writtenAt(p);
+                pendingHistory.add(() -> histories.computeIfAbsent(id, k -> new EditHistory(previous, createdAt))
+                        .add(previous, content, editedAt));
+            }
+        }
+
+        TieredBodyStore b = bodies;
+        Post.Body body = b.current(p.getId());
+        if (body == null || !p.isBackedBy(body)) {
+            if (!replacedBodies.containsKey(p.getId())) replacedBodies.put(p.getId(), body);
+            p = p.withBody(b.put(p.getId(), p.getRawContent()));
+        }
+
+        d.store = d.store.with(p);
+        lastId.accumulateAndGet(p.getId(), Math::max);
+        if (!sameText || !old.getAuthor().equals(p.getAuthor()) || !old.getThread().equals(p.getThread())) {
+            d.index = d.index.index(p, d);
+        }
+        // Only update() can change createdAt; then the post moves in both orders.
+        boolean moved = old == null || !old.getCreatedAt().equals(p.getCreatedAt());
+        if (moved) {
+            if (old != null) d.newestFirst = d.newestFirst.without(OrderKey.of(old), d);
+            d.newestFirst = d.newestFirst.with(OrderKey.of(p), Boolean.TRUE, d);
+        }
+        if (old != null && (moved || !old.getFoldedAuthor().equals(p.getFoldedAuthor()))) {
+            PersistentSortedMap<OrderKey, Boolean> keys = d.byAuthor.get(old.getFoldedAuthor());
+            if (keys != null) {
+                keys = keys.without(OrderKey.of(old), d);
+                d.byAuthor = keys.isEmpty() ? d.byAuthor.without(old.getFoldedAuthor(), d)
+                        : d.byAuthor.with(old.getFoldedAuthor(), keys, d);
+            }
+        }
+        PersistentSortedMap<OrderKey, Boolean> keys = d.byAuthor.get(p.getFoldedAuthor());
+        if (keys == null) keys = PersistentSortedMap.empty();
+        d.byAuthor = d.byAuthor.with(p.getFoldedAuthor(), keys.with(OrderKey.of(p), Boolean.TRUE, d), d);
+        d.deletedIds = d.deletedIds.with(p.getId(), p.isDeleted(), d);
+        d.flaggedIds = d.flaggedIds.with(p.getId(), p.getModeration() == Moderation.FLAGGED, d);
+        d.hiddenIds = d.hiddenIds.with(p.getId(), p.getModeration() == Moderation.HIDDEN, d);
+
+        String key = p.getFoldedThread();
+        if (old != null && !old.getFoldedThread().equals(key)) {
+            IdBitmap ids = d.byThread.get(old.getFoldedThread());
+            if (ids != null) {
+                ids = ids.with(p.getId(), false, d);
+                d.byThread = ids.isEmpty() ? d.byThread.without(old.getFoldedThread(), d)
+                        : d.byThread.with(old.getFoldedThread(), ids, d);
+            }
+        }
+        IdBitmap ids = d.byThread.get(key);
+        if (ids == null) ids = new IdBitmap();
+        d.byThread = d.byThread.with(key, ids.with(p.getId(), true, d), d);
+
+        // Passed on in write order once the version is published.
+        if (old != p && changes.hasSubscribers()) pending.add(new Post[] { old, p });
+        return p;
+    }
+
+    /** When this version of the post was written: its last edit, else its creation. */
+    private static LocalDateTime writtenAt(Post p) {
+        return (p.getEditedAt() != null) ? p.getEditedAt() : p.getCreatedAt();
+    }
+
+    /** A post with its relevance score for one query. */
+    private static final class Scored {
+        final Post post;
+        final double score;
+
+        Scored(Post post, double score) {
+            this.post = post;
+            this.score = score;
+        }
+    }
+
+    /** Relevance order: higher score first, then newest first. */
+    private static final Comparator<Scored> BEST_FIRST =
+            Comparator.comparingDouble((Scored s) -> -s.score).thenComparing(s -> s.post, NEWEST_FIRST);
+
+    /**
+     * One version of the posts and every index over them. A write fills in
+     * a copy of the current version ({@link #next()}) and then publishes it
+     * through the volatile {@link InMemoryPostRepository#state}; after that
+     * nothing changes it, so a reader that took it has a consistent view for
+     * as long as it likes. The structures are persistent, so a version
+     * shares all but the parts a write touched with the one before.
+     *
+     * <p>As {@link PostQuery.Indexes} it answers a structured query plan
+     * from this version's indexes.</p>
+     */
+    private static final class State implements PostQuery.Indexes {
+        /** Number of writes up to this version; see {@link InMemoryPostRepository#generation()}. */
+        long version;
+
+        /** All posts by their ID. */
+        PersistentPostMap store;
+
+        /** Token index over author, thread and content. */
+        InvertedIndex index;
+
+        /** Lower-case thread name -> ids of the posts in that thread. */
+        PersistentSortedMap<String, IdBitmap> byThread;
+
+        /** Lower-case author name -> keys of that author's posts, newest first. */
+        PersistentSortedMap<String, PersistentSortedMap<OrderKey, Boolean>> byAuthor;
+
+        /** Every post, ordered newest first by (createdAt, id). */
+        PersistentSortedMap<OrderKey, Boolean> newestFirst;
+
+        /** Ids of soft-deleted posts. */
+        IdBitmap deletedIds;
+
+        /** Ids of posts whose moderation is FLAGGED. */
+        IdBitmap flaggedIds;
+
+        /** Ids of posts whose moderation is HIDDEN. */
+        IdBitmap hiddenIds;
+
+        static State empty() {
+            State s = new State();
+            s.store = PersistentPostMap.empty();
+            s.index = InvertedIndex.empty();
+            s.byThread = PersistentSortedMap.empty();
+            s.byAuthor = PersistentSortedMap.empty();
+            s.newestFirst = PersistentSortedMap.empty();
+            s.deletedIds = new IdBitmap();
+            s.flaggedIds = new IdBitmap();
+            s.hiddenIds = new IdBitmap();
+            return s;
+        }
+
+        /** A copy to build the next version in; it shares everything until changed. */
+        State next() {
+            State n = new State();
+            n.version = version;
+            n.store = store;
+            n.index = index;
+            n.byThread = byThread;
+            n.byAuthor = byAuthor;
+            n.newestFirst = newestFirst;
+            n.deletedIds = deletedIds;
+            n.flaggedIds = flaggedIds;
+            n.hiddenIds = hiddenIds;
+            return n;
+        }
+
+        /** The bitmap of a moderation state; null for NORMAL, which has none. */
+        IdBitmap moderationIds(Moderation m) {
+            switch (m) {
+                case FLAGGED: return flaggedIds;
+                case HIDDEN:  return hiddenIds;
+                default:      return null;
+            }
+        }
+
+        @Override public Set<Integer> keyword(String folded) {
+            return index.candidates(folded);
+        }
+
+        @Override public Set<Integer> author(String folded) {
+            PersistentSortedMap<OrderKey, Boolean> keys = byAuthor.get(folded);
+            if (keys == null) return Set.of();
+            Set<Integer> ids = new HashSet<>(keys.size() * 2);
+            keys.forEach((k, present) -> ids.add(k.id));
+            return ids;
+        }
+
+        @Override public Set<Integer> thread(String folded) {
+            IdBitmap ids = byThread.get(folded);
+            return (ids == null) ? Set.of() : ids;
+        }
+
+        @Override public Set<Integer> moderation(Moderation m) {
+            return moderationIds(m);
+        }
+    }
+
+    /**
+     * Position of a post in the newest-first index. The creation time never
+     * changes, so a post keeps its key across edits and moderation.
+     */
+    private static final class OrderKey implements Comparable<OrderKey> {
+        final LocalDateTime createdAt;
+        final int id;
+
+        OrderKey(LocalDateTime createdAt, int id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+
+        static OrderKey of(Post p) {
+            return new OrderKey(p.getCreatedAt(), p.getId());
+        }
+
+        @Override public int compareTo(OrderKey o) {
+            int c = o.createdAt.compareTo(createdAt);
+            return c != 0 ? c : Integer.compare(o.id, id);
+        }
+    }
+
+    /**
+     * Trimmed, shared instance of an author or thread name. Blank and null
+     * names pass through so that Post can reject them as usual.
+     */
+    private String symbol(String name) {
+        return name == null ? null : symbols.intern(name.trim());
+    }
+
+    /** Normalized form of a thread name used as the thread index key. */
+    private static String threadKey(String thread) {
+        return Post.fold(thread);
+    }
+
+    /**
+     * Returns the post if it exists in version {@code s}, otherwise throws
+     * an exception. This makes certain update operations easier to implement.
      */
-    private Post require(int id) {
-        Post p = store.get(id);
+    private static Post require(State s, int id) {
+        Post p = s.store.get(id);
         if (p == null) {
             throw new NoSuchElementException("post " + id + " not found");
         }
@@ -150,11 +962,14 @@ public class InMemoryPostRepository {
     }
 
     /**
-     * Placeholder for assignments that may need a full update method.
-     * Currently unused.
+     * Returns {@code p} with shared author and thread names, or {@code p}
+     * itself if its names are shared already.
      */
-    public void update(Post updated) {
-        // Method intentionally left blank.
-        // Some assignments require the signature, but not the implementation.
+    private Post shared(Post p) {
+        String author = symbol(p.getAuthor());
+        String thread = symbol(p.getThread());
+        if (author == p.getAuthor() && thread == p.getThread()) return p;
+        return Post.restore(p.getId(), author, thread, p.getRawContent(),
+                p.getCreatedAt(), p.getEditedAt(), p.isDeleted(), p.getModeration());
     }
 }
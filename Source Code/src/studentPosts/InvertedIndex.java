@@ -0,0 +1,363 @@
+package studentPosts;
+
+import entityClasses.Post;
+
+import java.util.*;
+
+/**
+ * Token inverted index used by {@link InMemoryPostRepository#search(SearchSpec)}.
+ * Every post's author, thread and content are split into case-folded tokens
+ * (runs of letters and digits), and each token maps to the ids of the posts
+ * that contain it. The repository keeps the index current on every create,
+ * edit and delete, so a keyword search only has to look at the posts whose
+ * tokens can match instead of scanning every post.
+ *
+ * <p>It also keeps what BM25 relevance ranking needs ({@link #score}): the
+ * per-field count of each token in each post, each post's field lengths, and
+ * running totals for the average field lengths. Document frequencies are
+ * the sizes of the postings lists.</p>
+ *
+ * <p>The index only narrows the search. A keyword is still a case-insensitive
+ * substring, so the repository re-checks every candidate; the index just
+ * guarantees that no post outside the candidate set could have matched.</p>
+ *
+ * <p>The index is an immutable value, so the repository can publish it with
+ * the posts it describes. {@link #index(Post, Object)} and
+ * {@link #remove(int, Object)} return the changed index; they take an edit
+ * token as {@link PersistentSortedMap} does, so a writer that indexes many
+ * posts into one version copies each part of the index only once.</p>
+ */
+public final class InvertedIndex {
+
+    /** Token -> ids of the posts containing it. */
+    private PersistentSortedMap<String, IdBitmap> postings;
+
+    /** Fields in the order used by the per-field arrays below. */
+    private static final int AUTHOR = 0, THREAD = 1, CONTENT = 2, FIELDS = 3;
+
+    /** BM25 term-frequency saturation. */
+    private static final double K1 = 1.2;
+
+    /** BM25 length normalization (0 = none, 1 = full). */
+    private static final double B = 0.75;
+
+    /** Weight of a match in each field: a name or thread hit counts more than one in the body. */
+    private static final double[] FIELD_BOOST = {2.0, 1.5, 1.0};
+
+    /**
+     * Post id -> its tokens with their count in each field, so an edit or
+     * removal knows what to unindex and ranking knows the term frequencies,
+     * and its number of tokens in each field.
+     */
+    private PersistentSortedMap<Integer, Doc> docs;
+
+    /** Sum of each field's length over all posts, for the average. */
+    private long[] totalLengths;
+
+    /**
+     * Cut-off tokens shorter than this are not looked up: one or two letters
+     * occur in most words, so the lookup would cost more than it narrows.
+     */
+    private static final int MIN_PARTIAL_LENGTH = 3;
+
+    /** Trigrams of every token in {@link #postings}, for fuzzy lookups. */
+    private TrigramIndex trigrams;
+
+    /** Edit token that may change this index in place, or null. */
+    private Object owner;
+
+    /** One post's tokens with their count in each field, and its field lengths; never changed. */
+    private static final class Doc {
+        final Map<String, int[]> terms;
+        final int[] lengths;
+
+        Doc(Map<String, int[]> terms, int[] lengths) {
+            this.terms = terms;
+            this.lengths = lengths;
+        }
+    }
+
+    private static final InvertedIndex EMPTY = new InvertedIndex(
+            PersistentSortedMap.empty(), PersistentSortedMap.empty(), new long[FIELDS], TrigramIndex.empty());
+
+    private InvertedIndex(PersistentSortedMap<String, IdBitmap> postings, PersistentSortedMap<Integer, Doc> docs,
+                          long[] totalLengths, TrigramIndex trigrams) {
+        this.postings = postings;
+        this.docs = docs;
+        this.totalLengths = totalLengths;
+        this.trigrams = trigrams;
+    }
+
+    /** Returns the empty index. */
+    public static InvertedIndex empty() {
+        return EMPTY;
+    }
+
+    // ============================================================
+    // MAINTENANCE
+    // ============================================================
+
+    /**
+     * Returns the index with a post indexed, replacing whatever was indexed
+     * before for the same id. Only the tokens that actually changed touch
+     * the postings lists.
+     */
+    public InvertedIndex index(Post p, Object edit) {
+        Map<String, int[]> terms = new HashMap<>();
+        int[] lengths = new int[FIELDS];
+        count(terms, lengths, AUTHOR, p.getAuthor());
+        count(terms, lengths, THREAD, p.getThread());
+        count(terms, lengths, CONTENT, p.getRawContent());
+
+        InvertedIndex out = editable(edit);
+        Doc old = out.docs.get(p.getId());
+        out.docs = out.docs.with(p.getId(), new Doc(terms, lengths), edit);
+        if (old != null) {
+            for (String t : old.terms.keySet()) {
+                if (!terms.containsKey(t)) out.unpost(t, p.getId(), edit);
+            }
+        }
+        if (old != null) out.addLengths(old.lengths, -1);
+        out.addLengths(lengths, 1);
+        for (String t : terms.keySet()) {
+            if (old == null || !old.terms.containsKey(t)) out.post(t, p.getId(), edit);
+        }
+        return out;
+    }
+
+    /** Returns the index without a post. */
+    public InvertedIndex remove(int id, Object edit) {
+        Doc old = docs.get(id);
+        if (old == null) return this;
+        InvertedIndex out = editable(edit);
+        out.docs = out.docs.without(id, edit);
+        for (String t : old.terms.keySet()) out.unpost(t, id, edit);
+        out.addLengths(old.lengths, -1);
+        return out;
+    }
+
+    // ============================================================
+    // LOOKUP
+    // ============================================================
+
+    /**
+     * Returns the ids of every post that could contain {@code query} as a
+     * substring of its author, thread or content.
+     *
+     * <p>A substring that spans several tokens must contain its inner tokens
+     * whole, so those are looked up exactly. Its first and last tokens may be
+     * cut off, so those match any indexed token that contains them, unless
+     * they are too short to narrow anything.</p>
+     *
+     * @param query keyword, already passed through {@link Post#fold(String)}
+     * @return candidate ids, or {@code null} if no token narrows the search
+     *         and the caller has to scan
+     */
+    public Set<Integer> candidates(String query) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) return null;
+
+        List<Set<Integer>> sets = new ArrayList<>();
+        for (int i = 1; i < tokens.size() - 1; i++) {
+            Set<Integer> exact = postings.get(tokens.get(i));
+            if (exact == null) return Set.of();
+            sets.add(exact);
+        }
+        if (tokens.get(0).length() >= MIN_PARTIAL_LENGTH) sets.add(containing(tokens.get(0)));
+        String last = tokens.get(tokens.size() - 1);
+        if (tokens.size() > 1 && last.length() >= MIN_PARTIAL_LENGTH) sets.add(containing(last));
+        if (sets.isEmpty()) return null;
+
+        sets.sort(Comparator.comparingInt(Set::size));
+        Set<Integer> result = new HashSet<>(sets.get(0));
+        for (int i = 1; i < sets.size() && !result.isEmpty(); i++) {
+            result.retainAll(sets.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Whether {@link #candidates(String)} holds exactly the posts that
+     * contain {@code query}, so they need no re-check. That is so for a
+     * single token long enough to be looked up: it can only occur inside
+     * one token of a post, and every token containing it was looked up.
+     *
+     * @param query keyword, already passed through {@link Post#fold(String)}
+     */
+    public static boolean isExact(String query) {
+        if (query.length() < MIN_PARTIAL_LENGTH) return false;
+        List<String> tokens = tokenize(query);
+        return tokens.size() == 1 && tokens.get(0).equals(query);
+    }
+
+    /**
+     * Returns the ids of every post in which each token of {@code query}
+     * matches some token within a few typos ({@link TrigramIndex#maxEdits}).
+     * The last query token may be unfinished, so it also matches the start of
+     * a longer word. Tokens too short for typos must match exactly (or, for
+     * the last one, as a prefix).
+     *
+     * @param query keyword, already passed through {@link Post#fold(String)}
+     * @return matching ids, or {@code null} if no token is long enough to
+     *         allow typos, in which case the plain search is all there is
+     */
+    public Set<Integer> fuzzyCandidates(String query) {
+        List<String> tokens = tokenize(query);
+        boolean anyFuzzy = false;
+        for (int i = 0; i < tokens.size(); i++) {
+            if (TrigramIndex.maxEdits(tokens.get(i).length(), i == tokens.size() - 1) > 0) anyFuzzy = true;
+        }
+        if (!anyFuzzy) return null;
+
+        Set<Integer> result = null;
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            boolean last = (i == tokens.size() - 1);
+            Set<Integer> ids = new HashSet<>();
+
+            Set<String> terms = trigrams.similar(token, last);
+            if (last) {
+                postings.keys(token, true, null, false).takeWhile(t -> t.startsWith(token)).forEach(terms::add);
+            } else if (postings.containsKey(token)) {
+                terms.add(token);
+            }
+            for (String t : terms) ids.addAll(postings.get(t));
+
+            if (result == null) result = ids; else result.retainAll(ids);
+            if (result.isEmpty()) break;
+        }
+        return result;
+    }
+
+    /**
+     * BM25F relevance of a post to the query tokens. For every query token,
+     * each of the post's tokens that contains it (the same rule the keyword
+     * match uses) contributes its inverse document frequency times a
+     * saturated, length-normalized term frequency, where the frequency
+     * combines the three fields with their boosts.
+     *
+     * @param id          post id
+     * @param queryTokens folded query tokens, from {@link #tokenize(String)}
+     * @return the score; 0 for an unknown post or no shared tokens
+     */
+    public double score(int id, List<String> queryTokens) {
+        Doc doc = docs.get(id);
+        if (doc == null) return 0;
+        Map<String, int[]> terms = doc.terms;
+        int[] lengths = doc.lengths;
+
+        int n = docs.size();
+        double[] norm = new double[FIELDS];
+        for (int f = 0; f < FIELDS; f++) {
+            double avg = Math.max(1.0, (double) totalLengths[f] / n);
+            norm[f] = 1 - B + B * lengths[f] / avg;
+        }
+
+        double score = 0;
+        for (String q : queryTokens) {
+            for (Map.Entry<String, int[]> e : terms.entrySet()) {
+                if (!e.getKey().contains(q)) continue;
+                int[] tf = e.getValue();
+                double weighted = 0;
+                for (int f = 0; f < FIELDS; f++) weighted += FIELD_BOOST[f] * tf[f] / norm[f];
+                int df = documentFrequency(e.getKey());
+                double idf = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+                score += idf * weighted / (K1 + weighted);
+            }
+        }
+        return score;
+    }
+
+    /** Number of posts that contain the exact token. */
+    public int documentFrequency(String token) {
+        IdBitmap ids = postings.get(token);
+        return ids == null ? 0 : ids.size();
+    }
+
+    /** Number of distinct tokens in the index. */
+    public int vocabularySize() {
+        return postings.size();
+    }
+
+    // ============================================================
+    // INTERNAL HELPERS
+    // ============================================================
+
+    /**
+     * Union of the postings of every token containing {@code part}. This walks
+     * the vocabulary, which is far smaller than the text of every post.
+     */
+    private Set<Integer> containing(String part) {
+        Set<Integer> ids = new HashSet<>();
+        postings.forEach((token, posts) -> {
+            if (token.contains(part)) ids.addAll(posts);
+        });
+        return ids;
+    }
+
+    /** This index if it belongs to {@code edit}, else a copy that does, sharing everything. */
+    private InvertedIndex editable(Object edit) {
+        if (edit != null && owner == edit) return this;
+        InvertedIndex c = new InvertedIndex(postings, docs, totalLengths.clone(), trigrams);
+        c.owner = edit;
+        return c;
+    }
+
+    /** Adds a post to the postings of one token. Only on an owned index. */
+    private void post(String token, int id, Object edit) {
+        IdBitmap ids = postings.get(token);
+        if (ids == null) {
+            trigrams = trigrams.add(token, edit);
+            ids = new IdBitmap();
+        }
+        IdBitmap added = ids.with(id, true, edit);
+        if (added != ids || !postings.containsKey(token)) postings = postings.with(token, added, edit);
+    }
+
+    /** Adds the tokens of one field to the per-field counts. */
+    private static void count(Map<String, int[]> terms, int[] lengths, int field, String text) {
+        for (String t : tokenize(text)) {
+            terms.computeIfAbsent(t, k -> new int[FIELDS])[field]++;
+            lengths[field]++;
+        }
+    }
+
+    /** Adds ({@code sign} 1) or takes away (-1) one post's field lengths from the totals. Only on an owned index. */
+    private void addLengths(int[] lengths, int sign) {
+        for (int f = 0; f < FIELDS; f++) totalLengths[f] += sign * lengths[f];
+    }
+
+    /** Removes a post from the postings of one token. Only on an owned index. */
+    private void unpost(String token, int id, Object edit) {
+        IdBitmap ids = postings.get(token);
+        if (ids == null) return;
+        ids = ids.with(id, false, edit);
+        if (ids.isEmpty()) {
+            postings = postings.without(token, edit);
+            trigrams = trigrams.remove(token, edit);
+        } else {
+            postings = postings.with(token, ids, edit);
+        }
+    }
+
+    /**
+     * Splits text into case-folded tokens ({@link Post#fold(String)}) made of
+     * letters and digits. Everything else separates tokens.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> out = new ArrayList<>();
+        if (text == null) return out;
+        String s = Post.fold(text);
+        int start = -1;
+        for (int i = 0; i <= s.length(); i++) {
+            boolean word = i < s.length() && Character.isLetterOrDigit(s.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                out.add(s.substring(start, i));
+                start = -1;
+            }
+        }
+        return out;
+    }
+}
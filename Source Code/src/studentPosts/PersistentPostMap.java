@@ -0,0 +1,338 @@
+package studentPosts;
+
+import entityClasses.Post;
+
+import java.util.AbstractCollection;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Immutable map from post id to {@link Post}, stored as a hash array mapped
+ * trie (HAMT). {@link #with(Post)} returns a new map that shares every node
+ * except the few on the path to the changed post, so publishing a new version
+ * costs a handful of small array copies rather than a copy of the whole store.
+ *
+ * <p>{@link InMemoryPostRepository} keeps its current version in a volatile
+ * field. A reader that grabs the field has a consistent snapshot that later
+ * writes can never change, and can iterate it lazily without any lock.</p>
+ *
+ * <p>Each level of the trie consumes five bits of the id, lowest bits first.
+ * Ids are ints, so two different ids always part ways within seven levels and
+ * the trie never needs collision buckets. A slot holds either a {@link Post}
+ * (a leaf, keyed by its own id) or a child {@link Node}.</p>
+ */
+public final class PersistentPostMap implements Iterable<Post> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final int MAX_DEPTH = (Integer.SIZE + BITS - 1) / BITS;
+
+    private static final PersistentPostMap EMPTY = new PersistentPostMap(new Node(0, new Object[0]), 0);
+
+    /** One trie node: a bitmap of occupied slots plus only those slots. */
+    private static final class Node {
+        final int bitmap;
+        final Object[] slots;
+
+        Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+    }
+
+    private final Node root;
+    private final int size;
+
+    private PersistentPostMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /** Returns the empty map. */
+    public static PersistentPostMap empty() {
+        return EMPTY;
+    }
+
+    // ============================================================
+    // LOOKUP
+    // ============================================================
+
+    /** Returns the post with the given id, or {@code null}. */
+    public Post get(int id) {
+        Node node = root;
+        for (int shift = 0; ; shift += BITS) {
+            int bit = 1 << ((id >>> shift) & MASK);
+            if ((node.bitmap & bit) == 0) return null;
+            Object slot = node.slots[Integer.bitCount(node.bitmap & (bit - 1))];
+            if (slot instanceof Node) {
+                node = (Node) slot;
+            } else {
+                Post p = (Post) slot;
+                return p.getId() == id ? p : null;
+            }
+        }
+    }
+
+    /** Number of posts in this version. */
+    public int size() {
+        return size;
+    }
+
+    /** Whether this version holds no posts. */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // ============================================================
+    // UPDATE
+    // ============================================================
+
+    /**
+     * Returns a map that holds {@code p} under its id, replacing any earlier
+     * version. This map is left unchanged.
+     */
+    public PersistentPostMap with(Post p) {
+        boolean[] added = new boolean[1];
+        Node newRoot = with(root, 0, p, added);
+        return newRoot == root ? this : new PersistentPostMap(newRoot, added[0] ? size + 1 : size);
+    }
+
+    private static Node with(Node node, int shift, Post p, boolean[] added) {
+        int id = p.getId();
+        int bit = 1 << ((id >>> shift) & MASK);
+        int at = Integer.bitCount(node.bitmap & (bit - 1));
+
+        if ((node.bitmap & bit) == 0) {
+            Object[] slots = new Object[node.slots.length + 1];
+            System.arraycopy(node.slots, 0, slots, 0, at);
+            System.arraycopy(node.slots, at, slots, at + 1, node.slots.length - at);
+            slots[at] = p;
+            added[0] = true;
+            return new Node(node.bitmap | bit, slots);
+        }
+
+        Object slot = node.slots[at];
+        Object replacement;
+        if (slot instanceof Node) {
+            Node child = with((Node) slot, shift + BITS, p, added);
+            if (child == slot) return node;
+            replacement = child;
+        } else {
+            Post existing = (Post) slot;
+            if (existing == p) return node;
+            if (existing.getId() == id) {
+                replacement = p;
+            } else {
+                replacement = pair(existing, p, shift + BITS);
+                added[0] = true;
+            }
+        }
+        Object[] slots = node.slots.clone();
+        slots[at] = replacement;
+        return new Node(node.bitmap, slots);
+    }
+
+    /** Builds the subtree holding two posts whose ids agree below {@code shift}. */
+    private static Node pair(Post a, Post b, int shift) {
+        int ia = (a.getId() >>> shift) & MASK;
+        int ib = (b.getId() >>> shift) & MASK;
+        if (ia == ib) {
+            return new Node(1 << ia, new Object[] { pair(a, b, shift + BITS) });
+        }
+        Object[] slots = ia < ib ? new Object[] { a, b } : new Object[] { b, a };
+        return new Node((1 << ia) | (1 << ib), slots);
+    }
+
+    // ============================================================
+    // ITERATION
+    // ============================================================
+
+    /**
+     * Iterates the posts of this version in trie order. Nothing is copied up
+     * front; the iterator walks the nodes as it goes.
+     */
+    @Override
+    public Iterator<Post> iterator() {
+        return new Iterator<Post>() {
+            private final Node[] nodes = new Node[MAX_DEPTH + 1];
+            private final int[] positions = new int[MAX_DEPTH + 1];
+            private int depth = 0;
+            private Post next;
+
+            {
+                nodes[0] = root;
+                advance();
+            }
+
+            private void advance() {
+                next = null;
+                while (depth >= 0) {
+                    Node node = nodes[depth];
+                    if (positions[depth] == node.slots.length) {
+                        depth--;
+                        continue;
+                    }
+                    Object slot = node.slots[positions[depth]++];
+                    if (slot instanceof Node) {
+                        depth++;
+                        nodes[depth] = (Node) slot;
+                        positions[depth] = 0;
+                    } else {
+                        next = (Post) slot;
+                        return;
+                    }
+                }
+            }
+
+            @Override public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override public Post next() {
+                if (next == null) throw new NoSuchElementException();
+                Post p = next;
+                advance();
+                return p;
+            }
+        };
+    }
+
+    /**
+     * Splits along the trie: a range of slots is halved, and a single child
+     * node is opened up into its own slots. Parallel streams over a version
+     * therefore hand each fork-join task whole subtrees to walk.
+     */
+    @Override
+    public Spliterator<Post> spliterator() {
+        return new TrieSpliterator(root.slots, 0, root.slots.length, size);
+    }
+
+    /**
+     * Read-only collection view of this version. Its size is known without
+     * a walk, and streaming or iterating it reads the trie directly.
+     */
+    public Collection<Post> values() {
+        return new AbstractCollection<Post>() {
+            @Override public Iterator<Post> iterator() {
+                return PersistentPostMap.this.iterator();
+            }
+
+            @Override public Spliterator<Post> spliterator() {
+                return PersistentPostMap.this.spliterator();
+            }
+
+            @Override public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Read-only list view of this version, in trie order. Iterating or
+     * streaming it reads the trie directly; the first {@link List#get(int)}
+     * copies the posts into an array once, so later indexed reads are
+     * constant time.
+     */
+    public List<Post> asList() {
+        return new ListView();
+    }
+
+    private final class ListView extends AbstractList<Post> implements RandomAccess {
+        /** Filled on the first indexed read; a race only fills it twice. */
+        private volatile Post[] array;
+
+        @Override public Post get(int index) {
+            Post[] a = array;
+            if (a == null) {
+                a = new Post[size];
+                int i = 0;
+                for (Post p : PersistentPostMap.this) a[i++] = p;
+                array = a;
+            }
+            return a[index];
+        }
+
+        @Override public Iterator<Post> iterator() {
+            return PersistentPostMap.this.iterator();
+        }
+
+        @Override public Spliterator<Post> spliterator() {
+            return PersistentPostMap.this.spliterator();
+        }
+
+        @Override public int size() {
+            return size;
+        }
+    }
+
+    /** Spliterator over the slots {@code [lo, hi)} of one node and everything below them. */
+    private static final class TrieSpliterator implements Spliterator<Post> {
+        private Object[] slots;
+        private int lo;
+        private int hi;
+        private long estimate;
+        private Iterator<Post> inner;   // walk of the subtree at slots[lo - 1], if any
+
+        TrieSpliterator(Object[] slots, int lo, int hi, long estimate) {
+            this.slots = slots;
+            this.lo = lo;
+            this.hi = hi;
+            this.estimate = estimate;
+        }
+
+        @Override
+        public Spliterator<Post> trySplit() {
+            if (inner != null) return null;
+            if (hi - lo == 1 && slots[lo] instanceof Node) {
+                Node only = (Node) slots[lo];
+                slots = only.slots;
+                lo = 0;
+                hi = slots.length;
+            }
+            if (hi - lo < 2) return null;
+            int mid = (lo + hi) >>> 1;
+            long half = estimate / 2;
+            TrieSpliterator prefix = new TrieSpliterator(slots, lo, mid, half);
+            lo = mid;
+            estimate -= half;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Post> action) {
+            while (true) {
+                if (inner != null) {
+                    if (inner.hasNext()) {
+                        action.accept(inner.next());
+                        return true;
+                    }
+                    inner = null;
+                }
+                if (lo >= hi) return false;
+                Object slot = slots[lo++];
+                if (slot instanceof Node) {
+                    inner = new PersistentPostMap((Node) slot, 0).iterator();
+                } else {
+                    action.accept((Post) slot);
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return DISTINCT | NONNULL | IMMUTABLE;
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package studentPosts;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Immutable sorted map, stored as a B+ tree of up to {@link #MAX} entries
+ * per node. It backs the indexes of {@link InMemoryPostRepository}, which
+ * publishes them together with the post map as one version, so a search
+ * reads a consistent set of indexes without a lock.
+ *
+ * <p>{@link #with} and {@link #without} copy only the nodes on the path to
+ * the changed key. Both take an {@code edit} token: a node copied under a
+ * token belongs to it, and later changes under the same token change it in
+ * place. A writer therefore uses one fresh token per version it builds, so
+ * a bulk load copies each node once rather than once per entry, and never
+ * uses the token again once the version is published. A {@code null} token
+ * copies every time.</p>
+ *
+ * <p>Removing keys never merges nodes; a node is dropped once it is empty.
+ * The tree is only as deep as the most entries it ever held needed.</p>
+ *
+ * <p>Keys are compared by their natural order. Use it as a set by mapping
+ * every key to {@link Boolean#TRUE}.</p>
+ */
+public final class PersistentSortedMap<K extends Comparable<? super K>, V> {
+
+    /** Most entries in a leaf, and children in an inner node. */
+    static final int MAX = 32;
+
+    /** A leaf holds keys and values; an inner node holds children and the lowest key of each but the first. */
+    private static final class Node {
+        Object owner;
+        Object[] keys;
+        Object[] vals;      // leaves only
+        Node[] children;    // inner nodes only
+        int n;
+
+        boolean leaf() {
+            return children == null;
+        }
+    }
+
+    private Object owner;
+    private Node root;      // null when empty
+    private int size;
+
+    private PersistentSortedMap(Object owner, Node root, int size) {
+        this.owner = owner;
+        this.root = root;
+        this.size = size;
+    }
+
+    /** Returns a new empty map. */
+    public static <K extends Comparable<? super K>, V> PersistentSortedMap<K, V> empty() {
+        return new PersistentSortedMap<>(null, null, 0);
+    }
+
+    // ============================================================
+    // LOOKUP
+    // ============================================================
+
+    /** The value for {@code key}, or {@code null}. */
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        Node node = root;
+        if (node == null) return null;
+        while (!node.leaf()) node = node.children[childIndex(node, key)];
+        int at = search(node, key);
+        return (at >= 0) ? (V) node.vals[at] : null;
+    }
+
+    /** Whether {@code key} is mapped. */
+    public boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    /** Number of entries. */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // ============================================================
+    // UPDATE
+    // ============================================================
+
+    /**
+     * Returns a map with {@code key} mapped to {@code value} (not null). This
+     * map is left unchanged unless it belongs to {@code edit}.
+     */
+    public PersistentSortedMap<K, V> with(K key, V value, Object edit) {
+        if (value == null) throw new NullPointerException("value");
+        if (root == null) {
+            Node leaf = new Node();
+            leaf.owner = edit;
+            leaf.keys = new Object[] { key };
+            leaf.vals = new Object[] { value };
+            leaf.n = 1;
+            return update(leaf, 1, edit);
+        }
+        Node[] split = new Node[1];
+        boolean[] added = new boolean[1];
+        Node r = insert(root, key, value, edit, split, added);
+        if (split[0] != null) {
+            Node up = new Node();
+            up.owner = edit;
+            up.keys = new Object[] { null, firstKey(split[0]), null, null };
+            up.children = new Node[] { r, split[0], null, null };
+            up.n = 2;
+            r = up;
+        }
+        if (r == root && !added[0]) return this;
+        return update(r, added[0] ? size + 1 : size, edit);
+    }
+
+    /**
+     * Returns a map without {@code key}. This map is left unchanged unless it
+     * belongs to {@code edit}.
+     */
+    public PersistentSortedMap<K, V> without(K key, Object edit) {
+        if (root == null) return this;
+        boolean[] removed = new boolean[1];
+        Node r = remove(root, key, edit, removed);
+        if (!removed[0]) return this;
+        while (r != null && !r.leaf() && r.n == 1) r = r.children[0];
+        return update(r, size - 1, edit);
+    }
+
+    // ============================================================
+    // ITERATION
+    // ============================================================
+
+    /** Every key in ascending order. */
+    public Stream<K> keys() {
+        return keys(null, false, null, false);
+    }
+
+    /**
+     * The keys from {@code from} to {@code to} in ascending order, read
+     * lazily; either bound may be null for none.
+     */
+    public Stream<K> keys(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        Iterator<K> it = new RangeIterator(from, fromInclusive, to, toInclusive);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+    }
+
+    /** Calls {@code action} on every entry in ascending key order. */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (root != null) forEach(root, (BiConsumer<Object, Object>) action);
+    }
+
+    private static void forEach(Node node, BiConsumer<Object, Object> action) {
+        for (int i = 0; i < node.n; i++) {
+            if (node.leaf()) action.accept(node.keys[i], node.vals[i]);
+            else forEach(node.children[i], action);
+        }
+    }
+
+    // ============================================================
+    // INTERNAL HELPERS
+    // ============================================================
+
+    /** This map with a new root and size: changed in place if it belongs to {@code edit}. */
+    private PersistentSortedMap<K, V> update(Node r, int newSize, Object edit) {
+        if (edit != null && owner == edit) {
+            root = r;
+            size = newSize;
+            return this;
+        }
+        return new PersistentSortedMap<>(edit, r, newSize);
+    }
+
+    /** {@code node} itself if it belongs to {@code edit}, else a copy that does, with room for one more. */
+    private static Node own(Node node, Object edit) {
+        if (edit != null && node.owner == edit) return node;
+        Node c = new Node();
+        c.owner = edit;
+        int cap = Math.min(MAX, node.n + 1);
+        c.keys = Arrays.copyOf(node.keys, cap);
+        if (node.leaf()) c.vals = Arrays.copyOf(node.vals, cap);
+        else c.children = Arrays.copyOf(node.children, cap);
+        c.n = node.n;
+        return c;
+    }
+
+    private Node insert(Node node, K key, V value, Object edit, Node[] split, boolean[] added) {
+        if (node.leaf()) {
+            int at = search(node, key);
+            if (at >= 0) {
+                if (node.vals[at] == value) return node;
+                Node c = own(node, edit);
+                c.vals[at] = value;
+                return c;
+            }
+            added[0] = true;
+            return place(own(node, edit), -at - 1, key, value, null, edit, split);
+        }
+        int i = childIndex(node, key);
+        Node child = node.children[i];
+        Node[] childSplit = new Node[1];
+        Node updated = insert(child, key, value, edit, childSplit, added);
+        if (updated == child && childSplit[0] == null) return node;
+        Node c = own(node, edit);
+        c.children[i] = updated;
+        if (childSplit[0] == null) return c;
+        return place(c, i + 1, firstKey(childSplit[0]), null, childSplit[0], edit, split);
+    }
+
+    /**
+     * Puts a key with its value (leaf) or child (inner node) at {@code at}
+     * of an owned node, splitting it in half if it is full; the new right
+     * half is left in {@code split[0]}.
+     */
+    private static Node place(Node node, int at, Object key, Object value, Node child, Object edit, Node[] split) {
+        if (node.n < MAX) {
+            insertAt(node, at, key, value, child);
+            return node;
+        }
+        Node right = new Node();
+        right.owner = edit;
+        int half = MAX / 2;
+        right.keys = Arrays.copyOfRange(node.keys, half, MAX + 1);
+        if (node.leaf()) right.vals = Arrays.copyOfRange(node.vals, half, MAX + 1);
+        else right.children = Arrays.copyOfRange(node.children, half, MAX + 1);
+        right.n = MAX - half;
+        Arrays.fill(node.keys, half, node.n, null);
+        if (node.leaf()) Arrays.fill(node.vals, half, node.n, null);
+        else Arrays.fill(node.children, half, node.n, null);
+        node.n = half;
+        if (at <= half) insertAt(node, at, key, value, child);
+        else insertAt(right, at - half, key, value, child);
+        split[0] = right;
+        return node;
+    }
+
+    private static void insertAt(Node node, int at, Object key, Object value, Node child) {
+        if (node.n == node.keys.length) {
+            int cap = Math.min(MAX + 1, Math.max(4, node.n * 2));
+            node.keys = Arrays.copyOf(node.keys, cap);
+            if (node.leaf()) node.vals = Arrays.copyOf(node.vals, cap);
+            else node.children = Arrays.copyOf(node.children, cap);
+        }
+        System.arraycopy(node.keys, at, node.keys, at + 1, node.n - at);
+        node.keys[at] = key;
+        if (node.leaf()) {
+            System.arraycopy(node.vals, at, node.vals, at + 1, node.n - at);
+            node.vals[at] = value;
+        } else {
+            System.arraycopy(node.children, at, node.children, at + 1, node.n - at);
+            node.children[at] = child;
+        }
+        node.n++;
+    }
+
+    /** Removes {@code key} below {@code node}; returns the node, or null once it is empty. */
+    private Node remove(Node node, K key, Object edit, boolean[] removed) {
+        int i;
+        Node c;
+        if (node.leaf()) {
+            i = search(node, key);
+            if (i < 0) return node;
+            removed[0] = true;
+            if (node.n == 1) return null;
+            c = own(node, edit);
+        } else {
+            i = childIndex(node, key);
+            Node child = node.children[i];
+            Node updated = remove(child, key, edit, removed);
+            if (updated == child) return node;
+            c = own(node, edit);
+            if (updated != null) {
+                c.children[i] = updated;
+                return c;
+            }
+            if (c.n == 1) return null;
+        }
+        System.arraycopy(c.keys, i + 1, c.keys, i, c.n - i - 1);
+        c.keys[c.n - 1] = null;
+        if (c.leaf()) {
+            System.arraycopy(c.vals, i + 1, c.vals, i, c.n - i - 1);
+            c.vals[c.n - 1] = null;
+        } else {
+            System.arraycopy(c.children, i + 1, c.children, i, c.n - i - 1);
+            c.children[c.n - 1] = null;
+        }
+        c.n--;
+        return c;
+    }
+
+    /** Index of the child of an inner node whose keys may include {@code key}. */
+    @SuppressWarnings("unchecked")
+    private static <K extends Comparable<? super K>> int childIndex(Node node, K key) {
+        int lo = 1, hi = node.n - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (key.compareTo((K) node.keys[mid]) >= 0) lo = mid + 1;
+            else hi = mid - 1;
+        }
+        return lo - 1;
+    }
+
+    /** Position of {@code key} in a leaf, or {@code -(insertion point) - 1}. */
+    @SuppressWarnings("unchecked")
+    private static <K extends Comparable<? super K>> int search(Node leaf, K key) {
+        int lo = 0, hi = leaf.n - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = key.compareTo((K) leaf.keys[mid]);
+            if (c > 0) lo = mid + 1;
+            else if (c < 0) hi = mid - 1;
+            else return mid;
+        }
+        return -lo - 1;
+    }
+
+    private static Object firstKey(Node node) {
+        while (!node.leaf()) node = node.children[0];
+        return node.keys[0];
+    }
+
+    /** Walks the leaves from a lower bound, keeping the path down as a stack. */
+    private final class RangeIterator implements Iterator<K> {
+        private final Node[] nodes = new Node[16];
+        private final int[] positions = new int[16];
+        private int depth = -1;
+        private final K to;
+        private final boolean toInclusive;
+        private K next;
+
+        RangeIterator(K from, boolean fromInclusive, K to, boolean toInclusive) {
+            this.to = to;
+            this.toInclusive = toInclusive;
+            Node node = root;
+            if (node == null) return;
+            while (true) {
+                depth++;
+                nodes[depth] = node;
+                if (node.leaf()) break;
+                int i = (from == null) ? 0 : childIndex(node, from);
+                positions[depth] = i;
+                node = node.children[i];
+            }
+            int at = 0;
+            if (from != null) {
+                at = search(node, from);
+                at = (at >= 0) ? (fromInclusive ? at : at + 1) : -at - 1;
+            }
+            positions[depth] = at;
+            advance();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                Node node = nodes[depth];
+                int at = positions[depth];
+                if (at >= node.n) {
+                    depth--;
+                    if (depth >= 0) positions[depth]++;
+                    continue;
+                }
+                if (node.leaf()) {
+                    K key = (K) node.keys[at];
+                    positions[depth]++;
+                    if (to != null) {
+                        int c = key.compareTo(to);
+                        if (c > 0 || (c == 0 && !toInclusive)) {
+                            depth = -1;
+                            return;
+                        }
+                    }
+                    next = key;
+                    return;
+                }
+                depth++;
+                nodes[depth] = node.children[at];
+                positions[depth] = 0;
+            }
+        }
+
+        @Override public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override public K next() {
+            if (next == null) throw new NoSuchElementException();
+            K k = next;
+            advance();
+            return k;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package studentPosts;
+
+import entityClasses.Post;
+
+/**
+ * One write to {@link InMemoryPostRepository}, as delivered to the listeners
+ * registered with {@link InMemoryPostRepository#subscribe(Listener)}.
+ *
+ * <p>Posts are immutable, so {@code before} and {@code after} are the actual
+ * versions that were replaced and stored. A screen can apply the change to
+ * what it shows, e.g. replace {@code before} by {@code after} in a list,
+ * instead of querying everything again.</p>
+ *
+ * <p>A batch write (e.g. {@link InMemoryPostRepository#moderateAll}) is
+ * delivered as one change per post, all stamped with the generation the
+ * batch published, and the last of them says so through
+ * {@link #isLastOfWrite()}. A listener that must not act on part of a batch
+ * collects changes until then.</p>
+ */
+public final class PostChange {
+
+    /** What the write did. */
+    public enum Kind {
+        /** A new post; {@code before} is null. */
+        CREATED,
+        /** Content or thread changed. */
+        EDITED,
+        /** Moderation state changed. */
+        MODERATED,
+        /** The post was soft-deleted. */
+        DELETED
+    }
+
+    /**
+     * Receives changes on a background thread, one at a time and in the
+     * order the writes happened.
+     */
+    public interface Listener {
+        /** Called for every change, in write order. */
+        void onChange(PostChange change);
+
+        /**
+         * Called when changes had to be dropped because this listener fell
+         * too far behind. Whatever it shows may now be stale; it should read
+         * the repository again.
+         */
+        default void onOverflow() { }
+    }
+
+    private final Kind kind;
+    private final Post before;
+    private final Post after;
+    private final long generation;
+    private final boolean lastOfWrite;
+
+    PostChange(Kind kind, Post before, Post after, long generation, boolean lastOfWrite) {
+        this.kind = kind;
+        this.before = before;
+        this.after = after;
+        this.generation = generation;
+        this.lastOfWrite = lastOfWrite;
+    }
+
+    /**
+     * Classifies the write that replaced {@code before} (null for a new
+     * post) with {@code after}. A write that changes several things is
+     * reported by the most visible one: deletion, then moderation.
+     */
+    static PostChange of(Post before, Post after, long generation) {
+        return of(before, after, generation, true);
+    }
+
+    /**
+     * {@link #of(Post, Post, long)} for one of several changes published
+     * together; {@code lastOfWrite} marks the final one.
+     */
+    static PostChange of(Post before, Post after, long generation, boolean lastOfWrite) {
+        Kind kind;
+        if (before == null) kind = Kind.CREATED;
+        else if (after.isDeleted() && !before.isDeleted()) kind = Kind.DELETED;
+        else if (after.getModeration() != before.getModeration()) kind = Kind.MODERATED;
+        else kind = Kind.EDITED;
+        return new PostChange(kind, before, after, generation, lastOfWrite);
+    }
+
+    public Kind getKind() { return kind; }
+
+    /** The version that was replaced, or null for {@link Kind#CREATED}. */
+    public Post getBefore() { return before; }
+
+    /** The version now stored. */
+    public Post getAfter() { return after; }
+
+    /** Id of the changed post. */
+    public int getPostId() { return after.getId(); }
+
+    /**
+     * {@link InMemoryPostRepository#generation()} right after the write that
+     * made this change; every change of one batch has the same generation.
+     */
+    public long getGeneration() { return generation; }
+
+    /** Whether this is the last change of its write, so the batch is complete. */
+    public boolean isLastOfWrite() { return lastOfWrite; }
+
+    @Override
+    public String toString() {
+        return kind + " #" + after.getId() + " @" + generation;
+    }
+}
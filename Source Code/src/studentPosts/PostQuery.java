@@ -0,0 +1,400 @@
+package studentPosts;
+
+import entityClasses.Post;
+import entityClasses.Post.Moderation;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Small query language for staff searches, compiled to an index-aware plan.
+ *
+ * <pre>
+ *   recursion "base case"                 words and phrases (case-insensitive substrings)
+ *   author:alice  thread:"Exam Prep"      exact author / thread (case-insensitive)
+ *   moderation:FLAGGED                    NORMAL, FLAGGED or HIDDEN
+ *   after:2025-10-01  before:2025-11-01   created on or after / before a day (or yyyy-MM-ddTHH:mm)
+ *   a b   a AND b   a OR b   NOT a   -a   ( ... )
+ * </pre>
+ *
+ * <p>Adjacent terms are ANDed. NOT binds tighter than AND, which binds
+ * tighter than OR. The operators are only recognized in upper case, so
+ * "and" or "or" on their own are searched for as words.</p>
+ *
+ * <p>{@link #plan(Indexes)} picks where to start: the smallest candidate
+ * set any index can give (keyword, author, thread or moderation ids, intersected through
+ * ANDs and merged through ORs), else the created-at range from
+ * {@code after:}/{@code before:}, else the whole board. Every condition is
+ * then checked on each post coming out of that start, so the plan only
+ * decides how much has to be looked at, never what matches.</p>
+ */
+public final class PostQuery {
+
+    /** The index lookups a plan may use; {@code null} means "no index for this". */
+    public interface Indexes {
+        /** Superset of the posts whose author, thread or content contains the folded text. */
+        Set<Integer> keyword(String folded);
+
+        /** Posts by exactly this (folded) author. */
+        Set<Integer> author(String folded);
+
+        /** Posts in exactly this (folded) thread. */
+        Set<Integer> thread(String folded);
+
+        /** Posts in this moderation state, or null if no index keeps it. */
+        Set<Integer> moderation(Moderation m);
+    }
+
+    /**
+     * How to run a query: the ids to start from (or {@code null}), the
+     * created-at range to walk when there are none, and the full condition
+     * to check on every post.
+     */
+    public static final class Plan {
+        /** Candidate ids from the most selective index, or {@code null} to walk by date. */
+        public final Set<Integer> ids;
+        /** Inclusive lower bound on createdAt, or {@code null}. */
+        public final LocalDateTime from;
+        /** Exclusive upper bound on createdAt, or {@code null}. */
+        public final LocalDateTime to;
+        private final Node root;
+
+        private Plan(Set<Integer> ids, LocalDateTime from, LocalDateTime to, Node root) {
+            this.ids = ids;
+            this.from = from;
+            this.to = to;
+            this.root = root;
+        }
+
+        /** Whether the post satisfies the whole query. */
+        public boolean test(Post p) {
+            return root.test(p);
+        }
+
+        /** One-line description of where the plan starts, for logs and tests. */
+        @Override public String toString() {
+            if (ids != null) return "index(" + ids.size() + ") filter " + root;
+            if (from != null || to != null) return "range(" + from + ", " + to + ") filter " + root;
+            return "scan filter " + root;
+        }
+    }
+
+    private final Node root;
+
+    private PostQuery(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Parses a query.
+     *
+     * @throws IllegalArgumentException with the position of the problem if
+     *         the query is malformed
+     */
+    public static PostQuery parse(String text) {
+        Parser p = new Parser(text == null ? "" : text);
+        Node root = p.parseOr();
+        if (p.peek() != null) throw p.error("unexpected '" + p.peek() + "'");
+        return new PostQuery(root);
+    }
+
+    /** Builds the plan for this query against the given indexes. */
+    public Plan plan(Indexes indexes) {
+        Set<Integer> ids = root.candidates(indexes);
+        Range range = new Range();
+        root.narrow(range);
+        return new Plan(ids, range.from, range.to, root);
+    }
+
+    /** Whether the post satisfies the query. */
+    public boolean test(Post p) {
+        return root.test(p);
+    }
+
+    @Override public String toString() {
+        return root.toString();
+    }
+
+    // ============================================================
+    // QUERY TREE
+    // ============================================================
+
+    private interface Node {
+        boolean test(Post p);
+
+        /** Superset of the matching ids, or {@code null} if no index can tell. */
+        Set<Integer> candidates(Indexes idx);
+
+        /** Tightens the range with date bounds that every match must meet. */
+        default void narrow(Range range) { }
+    }
+
+    private static final class Range {
+        LocalDateTime from;
+        LocalDateTime to;
+    }
+
+    private static final class Keyword implements Node {
+        final String folded;
+        Keyword(String text) { this.folded = Post.fold(text); }
+        public boolean test(Post p) { return p.containsFolded(folded); }
+        public Set<Integer> candidates(Indexes idx) { return idx.keyword(folded); }
+        @Override public String toString() { return "\"" + folded + "\""; }
+    }
+
+    private static final class AuthorIs implements Node {
+        final String folded;
+        AuthorIs(String name) { this.folded = Post.fold(name); }
+        public boolean test(Post p) { return p.getFoldedAuthor().equals(folded); }
+        public Set<Integer> candidates(Indexes idx) { return idx.author(folded); }
+        @Override public String toString() { return "author:" + folded; }
+    }
+
+    private static final class ThreadIs implements Node {
+        final String folded;
+        ThreadIs(String name) { this.folded = Post.fold(name); }
+        public boolean test(Post p) { return p.getFoldedThread().equals(folded); }
+        public Set<Integer> candidates(Indexes idx) { return idx.thread(folded); }
+        @Override public String toString() { return "thread:" + folded; }
+    }
+
+    private static final class ModerationIs implements Node {
+        final Moderation m;
+        ModerationIs(Moderation m) { this.m = m; }
+        public boolean test(Post p) { return p.getModeration() == m; }
+        public Set<Integer> candidates(Indexes idx) { return idx.moderation(m); }
+        @Override public String toString() { return "moderation:" + m; }
+    }
+
+    /** created-at bound: {@code after:} is inclusive of its start, {@code before:} exclusive. */
+    private static final class Created implements Node {
+        final LocalDateTime bound;
+        final boolean after;
+        Created(LocalDateTime bound, boolean after) { this.bound = bound; this.after = after; }
+        public boolean test(Post p) {
+            return after ? !p.getCreatedAt().isBefore(bound) : p.getCreatedAt().isBefore(bound);
+        }
+        public Set<Integer> candidates(Indexes idx) { return null; }
+        @Override public void narrow(Range r) {
+            if (after && (r.from == null || bound.isAfter(r.from))) r.from = bound;
+            if (!after && (r.to == null || bound.isBefore(r.to))) r.to = bound;
+        }
+        @Override public String toString() { return (after ? "after:" : "before:") + bound; }
+    }
+
+    private static final class And implements Node {
+        final List<Node> parts;
+        And(List<Node> parts) { this.parts = parts; }
+        public boolean test(Post p) {
+            for (Node n : parts) if (!n.test(p)) return false;
+            return true;
+        }
+        /** Intersection of the known sets, smallest first; the others are checked later. */
+        public Set<Integer> candidates(Indexes idx) {
+            List<Set<Integer>> sets = new ArrayList<>();
+            for (Node n : parts) {
+                Set<Integer> s = n.candidates(idx);
+                if (s != null) sets.add(s);
+            }
+            if (sets.isEmpty()) return null;
+            sets.sort(Comparator.comparingInt(Set::size));
+            Set<Integer> out = new HashSet<>(sets.get(0));
+            for (int i = 1; i < sets.size() && !out.isEmpty(); i++) out.retainAll(sets.get(i));
+            return out;
+        }
+        @Override public void narrow(Range r) {
+            for (Node n : parts) n.narrow(r);
+        }
+        @Override public String toString() { return join(" AND "); }
+        String join(String op) {
+            StringBuilder b = new StringBuilder("(");
+            for (int i = 0; i < parts.size(); i++) b.append(i == 0 ? "" : op).append(parts.get(i));
+            return b.append(")").toString();
+        }
+    }
+
+    private static final class Or implements Node {
+        final List<Node> parts;
+        Or(List<Node> parts) { this.parts = parts; }
+        public boolean test(Post p) {
+            for (Node n : parts) if (n.test(p)) return true;
+            return false;
+        }
+        /** Union, but only if every branch has an index; one unindexed branch means scanning. */
+        public Set<Integer> candidates(Indexes idx) {
+            Set<Integer> out = new HashSet<>();
+            for (Node n : parts) {
+                Set<Integer> s = n.candidates(idx);
+                if (s == null) return null;
+                out.addAll(s);
+            }
+            return out;
+        }
+        @Override public String toString() { return new And(parts).join(" OR "); }
+    }
+
+    private static final class Not implements Node {
+        final Node inner;
+        Not(Node inner) { this.inner = inner; }
+        public boolean test(Post p) { return !inner.test(p); }
+        public Set<Integer> candidates(Indexes idx) { return null; }
+        @Override public String toString() { return "NOT " + inner; }
+    }
+
+    // ============================================================
+    // PARSER
+    // ============================================================
+
+    /** Recursive-descent parser over a simple tokenizer. */
+    private static final class Parser {
+        private final String text;
+        private int pos = 0;
+        private String peeked;
+        private boolean peekedQuoted;
+        private int peekedAt;
+
+        Parser(String text) { this.text = text; }
+
+        Node parseOr() {
+            List<Node> parts = new ArrayList<>();
+            parts.add(parseAnd());
+            while ("OR".equals(peekOperator())) {
+                take();
+                parts.add(parseAnd());
+            }
+            return parts.size() == 1 ? parts.get(0) : new Or(parts);
+        }
+
+        Node parseAnd() {
+            List<Node> parts = new ArrayList<>();
+            parts.add(parseNot());
+            while (true) {
+                String next = peek();
+                if (next == null || ")".equals(next) || "OR".equals(peekOperator())) break;
+                if ("AND".equals(peekOperator())) take();
+                parts.add(parseNot());
+            }
+            return parts.size() == 1 ? parts.get(0) : new And(parts);
+        }
+
+        Node parseNot() {
+            if ("NOT".equals(peekOperator())) {
+                take();
+                return new Not(parseNot());
+            }
+            String next = peek();
+            if (next != null && !peekedQuoted && next.length() > 1 && next.startsWith("-")) {
+                take();
+                return new Not(term(next.substring(1), false));
+            }
+            return parsePrimary();
+        }
+
+        Node parsePrimary() {
+            String next = peek();
+            if (next == null) throw error("expected a search term");
+            if (!peekedQuoted && "(".equals(next)) {
+                take();
+                Node inner = parseOr();
+                if (!")".equals(peek()) || peekedQuoted) throw error("expected ')'");
+                take();
+                return inner;
+            }
+            if (!peekedQuoted && (")".equals(next) || peekOperator() != null)) {
+                throw error("unexpected '" + next + "'");
+            }
+            boolean quoted = peekedQuoted;
+            take();
+            return term(next, quoted);
+        }
+
+        /** A word, phrase, or field:value term. */
+        private Node term(String word, boolean quoted) {
+            int colon = quoted ? -1 : word.indexOf(':');
+            if (colon <= 0) return new Keyword(word);
+
+            String field = word.substring(0, colon).toLowerCase(Locale.ROOT);
+            String value = word.substring(colon + 1);
+            if (value.isEmpty()) {
+                // field:"quoted value"
+                if (peek() == null || !peekedQuoted) throw error("expected a value after " + field + ":");
+                value = peek();
+                take();
+            }
+            switch (field) {
+                case "author":     return new AuthorIs(value);
+                case "thread":     return new ThreadIs(value);
+                case "moderation": return new ModerationIs(moderation(value));
+                case "after":      return new Created(date(value), true);
+                case "before":     return new Created(date(value), false);
+                default:           return new Keyword(word);   // e.g. "http://..." is just text
+            }
+        }
+
+        private Moderation moderation(String value) {
+            try {
+                return Moderation.valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw error("unknown moderation '" + value + "'");
+            }
+        }
+
+        private LocalDateTime date(String value) {
+            try {
+                return value.contains("T") ? LocalDateTime.parse(value) : LocalDate.parse(value).atStartOfDay();
+            } catch (DateTimeParseException e) {
+                throw error("bad date '" + value + "' (use yyyy-MM-dd or yyyy-MM-ddTHH:mm)");
+            }
+        }
+
+        private String peekOperator() {
+            String next = peek();
+            if (next == null || peekedQuoted) return null;
+            return ("AND".equals(next) || "OR".equals(next) || "NOT".equals(next)) ? next : null;
+        }
+
+        private String peek() {
+            if (peeked != null) return peeked;
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+            if (pos >= text.length()) return null;
+            peekedAt = pos;
+            char c = text.charAt(pos);
+            if (c == '(' || c == ')') {
+                pos++;
+                peekedQuoted = false;
+                return peeked = String.valueOf(c);
+            }
+            if (c == '"') {
+                int end = text.indexOf('"', pos + 1);
+                if (end < 0) throw error("unclosed quote");
+                peekedQuoted = true;
+                peeked = text.substring(pos + 1, end);
+                pos = end + 1;
+                return peeked;
+            }
+            int start = pos;
+            while (pos < text.length() && !Character.isWhitespace(text.charAt(pos))
+                    && text.charAt(pos) != '(' && text.charAt(pos) != ')' && text.charAt(pos) != '"') {
+                pos++;
+            }
+            peekedQuoted = false;
+            return peeked = text.substring(start, pos);
+        }
+
+        private void take() {
+            peek();
+            peeked = null;
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + peekedAt + " in query: " + text);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package studentPosts;
+
+import entityClasses.Post;
+import entityClasses.Post.Moderation;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+/**
+ * Storage for discussion posts. Controllers and {@code FoundationsMain} only
+ * talk to this interface, so the engine behind it can be swapped.
+ *
+ * <p>Implementations:</p>
+ * <ul>
+ *   <li>{@link InMemoryPostRepository}: indexed, concurrent and versioned;
+ *       the one the application uses.</li>
+ *   <li>{@link ScanningPostRepository}: a plain map that scans on every
+ *       search; the baseline the others are measured against.</li>
+ *   <li>{@link ColumnarPostStore}: one primitive array per field, for
+ *       archive-sized boards; searches scan the columns.</li>
+ * </ul>
+ *
+ * <p>{@link PostRepositoryConformance} checks that a backend behaves as
+ * documented here, and {@link PostRepositoryBenchmark} times the same
+ * workload against each one.</p>
+ *
+ * <p>Posts are immutable. Every change stores a new version under the same
+ * id and returns it. Lookups by name (thread, author) ignore case. Unknown
+ * ids make single-post changes throw {@link NoSuchElementException}.</p>
+ */
+public interface PostRepository {
+
+    // ============================================================
+    // CREATE
+    // ============================================================
+
+    /** Creates and stores a post with the given id. */
+    Post create(int id, String author, String thread, String content);
+
+    /** Creates and stores a post with the next free id. */
+    Post create(String author, String thread, String content);
+
+    /**
+     * Stores many existing posts at once, keeping their ids; a post with the
+     * id of a stored one replaces it.
+     *
+     * @return the stored posts by id, in the order given
+     */
+    Map<Integer, Post> createAll(Collection<Post> posts);
+
+    /** Reserves and returns the next unused post id. */
+    int nextId();
+
+    // ============================================================
+    // READ
+    // ============================================================
+
+    /** Returns the post with the given id, if it exists. */
+    Optional<Post> findById(int id);
+
+    /** Returns every stored post, in no particular order. */
+    List<Post> findAll();
+
+    /** Returns every post in the thread, deleted ones included. */
+    List<Post> findByThread(String thread);
+
+    /**
+     * Returns one page of the author's posts, newest first, deleted ones
+     * included.
+     *
+     * @param after id of the last post of the previous page, or null
+     * @param limit page size; 0 returns all of them
+     * @throws NoSuchElementException if {@code after} is not a known post id
+     */
+    List<Post> findByAuthor(String author, Integer after, int limit);
+
+    /** Number of posts written by {@code author}. */
+    int countByAuthor(String author);
+
+    /**
+     * Runs a search; see {@link SearchSpec} for the fields. Results are
+     * newest first. How {@code RELEVANCE} ranks is up to the backend, but it
+     * returns the same posts as {@code NEWEST}.
+     *
+     * @throws NoSuchElementException if {@code after} is not a known post id
+     * @throws IllegalArgumentException if {@code where} is not a valid query
+     */
+    List<Post> search(SearchSpec spec);
+
+    /**
+     * Every version of the post's content, oldest first; the last one is
+     * the current content. A post that was never edited has one version.
+     *
+     * @throws NoSuchElementException if no post has that id
+     */
+    List<EditHistory.Revision> history(int id);
+
+    // ============================================================
+    // UPDATE
+    // ============================================================
+
+    /**
+     * Replaces the stored version of a post with {@code updated}, which
+     * usually comes from one of the {@code with...} methods of {@link Post}.
+     *
+     * @return the version now stored
+     * @throws NoSuchElementException if no post has that id
+     */
+    Post update(Post updated);
+
+    /** Stores an edited copy of the post with new content. */
+    Post updateContent(int id, String newContent);
+
+    /** Moves a post to another thread. */
+    Post moveToThread(int id, String newThread);
+
+    /** Sets the moderation status of a post. */
+    Post moderate(int id, Moderation m);
+
+    /**
+     * Sets the moderation status of many posts.
+     *
+     * @return the updated post per id, or empty for unknown ids; in the
+     *         order given
+     */
+    Map<Integer, Optional<Post>> moderateAll(Collection<Integer> ids, Moderation m);
+
+    // ============================================================
+    // DELETE (SOFT DELETE)
+    // ============================================================
+
+    /** Marks a post as deleted; it stays stored. */
+    Post softDelete(int id);
+
+    /**
+     * Soft-deletes many posts.
+     *
+     * @return the deleted post per id, or empty for unknown ids; in the
+     *         order given
+     */
+    Map<Integer, Optional<Post>> softDeleteAll(Collection<Integer> ids);
+}
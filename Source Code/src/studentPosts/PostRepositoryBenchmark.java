@@ -0,0 +1,101 @@
+package studentPosts;
+
+import entityClasses.Post;
+import entityClasses.Post.Moderation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Times the same workload against every backend that
+ * {@link PostRepositoryConformance} checks, so a storage engine can be
+ * picked on measured numbers. Each operation is warmed up first, then run
+ * in several rounds; the best round is reported as microseconds per call.
+ *
+ * <p>Run with {@code java studentPosts.PostRepositoryBenchmark [posts]}. The
+ * board is generated from a fixed seed (500 authors, 20 threads), so runs
+ * are comparable. The read-only searches cycle through a few specs, so a
+ * backend with a result cache answers repeats from it, as it would for
+ * repeated clicks; "edit + search" writes before every search and shows
+ * the uncached cost.</p>
+ */
+public class PostRepositoryBenchmark {
+
+    private static final int ROUNDS = 5;
+    private static final int CALLS = 200;
+
+    private static final String[] WORDS = {
+            "recursion", "arrays", "lists", "stacks", "queues", "graphs", "trees", "sorting",
+            "hashing", "exam", "deadline", "project", "lecture", "proof", "induction", "loops"};
+
+    /** One timed operation; {@code i} varies the arguments between calls. */
+    private interface Op {
+        Object run(PostRepository repo, int i);
+    }
+
+    public static void main(String[] args) {
+        int posts = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        List<Post> board = board(posts);
+        System.out.printf("%,d posts, %d calls per round, best of %d%n", posts, CALLS, ROUNDS);
+
+        for (Map.Entry<String, Supplier<PostRepository>> e : PostRepositoryConformance.BACKENDS.entrySet()) {
+            System.out.println("\n-- " + e.getKey());
+
+            long start = System.nanoTime();
+            PostRepository repo = e.getValue().get();
+            repo.createAll(board);
+            System.out.printf("%-22s %10.1f ms%n", "load (createAll)", (System.nanoTime() - start) / 1e6);
+
+            time(repo, "findById", (r, i) -> r.findById(1 + i * 7919 % posts));
+            time(repo, "keyword search", (r, i) -> r.search(new SearchSpec().query(WORDS[i % WORDS.length])));
+            time(repo, "keyword page of 20", (r, i) -> r.search(new SearchSpec().query(WORDS[i % WORDS.length]).limit(20)));
+            time(repo, "thread page of 20", (r, i) -> r.search(new SearchSpec().thread("Thread " + i % 20).limit(20)));
+            time(repo, "newest page of 20", (r, i) -> r.search(new SearchSpec().limit(20).excludeHidden(true)));
+            time(repo, "flagged posts", (r, i) -> r.search(new SearchSpec().moderation(Moderation.FLAGGED)));
+            time(repo, "author history", (r, i) -> r.findByAuthor("Student" + i % 500, null, 0));
+            time(repo, "structured query", (r, i) -> r.search(new SearchSpec().where(
+                    "author:student" + i % 500 + " OR thread:\"thread " + i % 20 + "\"").limit(20)));
+            time(repo, "edit + search", (r, i) -> {
+                r.updateContent(1 + i % posts, "edited about " + WORDS[i % WORDS.length]);
+                return r.search(new SearchSpec().query(WORDS[(i + 3) % WORDS.length]).limit(20));
+            });
+            time(repo, "moderate 50 at once", (r, i) -> {
+                List<Integer> ids = new ArrayList<>();
+                for (int k = 0; k < 50; k++) ids.add(1 + (i * 50 + k) % posts);
+                return r.moderateAll(ids, (i % 2 == 0) ? Moderation.HIDDEN : Moderation.NORMAL);
+            });
+        }
+    }
+
+    /** Warms the operation up, then prints the best of {@link #ROUNDS} rounds. */
+    private static void time(PostRepository repo, String name, Op op) {
+        Object sink = null;
+        for (int i = 0; i < CALLS; i++) sink = op.run(repo, i);
+
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < CALLS; i++) sink = op.run(repo, round * CALLS + i);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-22s %10.1f us/call%s%n", name, best / 1e3 / CALLS, sink == null ? "!" : "");
+    }
+
+    /** A reproducible board: every seventh post flagged, every thirteenth deleted. */
+    private static List<Post> board(int posts) {
+        Random rnd = new Random(7);
+        List<Post> out = new ArrayList<>(posts);
+        for (int id = 1; id <= posts; id++) {
+            String content = "Question " + id + " about " + WORDS[rnd.nextInt(WORDS.length)]
+                    + " and " + WORDS[rnd.nextInt(WORDS.length)];
+            Post p = Post.createNew(id, "Student" + rnd.nextInt(500), "Thread " + rnd.nextInt(20), content);
+            if (id % 7 == 0) p = p.withModeration(Moderation.FLAGGED);
+            if (id % 13 == 0) p = p.softDeleted();
+            out.add(p);
+        }
+        return out;
+    }
+}
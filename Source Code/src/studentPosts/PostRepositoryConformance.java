@@ -0,0 +1,324 @@
+package studentPosts;
+
+import entityClasses.Post;
+import entityClasses.Post.Moderation;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Behavior every {@link PostRepository} must share, run against each backend
+ * in {@link #BACKENDS}. A new storage engine is added there and has to pass
+ * the same checks before anything uses it.
+ *
+ * <p>Besides the documented rules, {@code same_results_as_baseline} replays
+ * one random workload on the backend and on {@link ScanningPostRepository}
+ * and compares a few hundred searches, so an index that drifts from a plain
+ * scan is caught even where no rule was written down.</p>
+ *
+ * Run with {@code java studentPosts.PostRepositoryConformance}.
+ */
+public class PostRepositoryConformance {
+
+    /** Backends under test, by name. Each supplier returns an empty repository. */
+    static final Map<String, Supplier<PostRepository>> BACKENDS = new LinkedHashMap<>();
+    static {
+        BACKENDS.put("in-memory", InMemoryPostRepository::new);
+        BACKENDS.put("in-memory, parallel, uncached", () -> {
+            InMemoryPostRepository repo = new InMemoryPostRepository();
+            repo.setParallelThreshold(1);
+            repo.setSearchCacheSize(0);
+            return repo;
+        });
+        BACKENDS.put("in-memory, cold bodies", () -> {
+            InMemoryPostRepository repo = new InMemoryPostRepository();
+            repo.setBodyTiers(1, 1);
+            return repo;
+        });
+        BACKENDS.put("scanning", ScanningPostRepository::new);
+        BACKENDS.put("columnar", ColumnarPostStore::new);
+    }
+
+    private int passed=0, failed=0;
+    private String backend;
+    private Supplier<PostRepository> factory;
+
+    public static void main(String[] args) throws Exception { new PostRepositoryConformance().run(); }
+
+    private void run() {
+        for (Map.Entry<String, Supplier<PostRepository>> e : BACKENDS.entrySet()) {
+            backend = e.getKey();
+            factory = e.getValue();
+            System.out.println("-- " + backend);
+
+            create_and_find();
+            update_replaces_the_stored_version();
+            unknown_ids_are_rejected();
+            search_filters_visibility();
+            search_pages_newest_first();
+            relevance_returns_the_same_posts();
+            fuzzy_tolerates_typos();
+            structured_queries();
+            author_history_pages();
+            bulk_changes_report_each_id();
+            history_keeps_every_version();
+            same_results_as_baseline();
+        }
+
+        System.out.printf("%nPostRepositoryConformance %s (%d/%d)%n",
+                failed==0?"PASSED":"DONE WITH FAILURES", passed, passed+failed);
+        if (failed>0) System.exit(1);
+    }
+
+    private void create_and_find(){
+        PostRepository repo = factory.get();
+        Post a = repo.create(1," alice ","General","Hello board");
+        assertEq("alice", a.getAuthor(), "names trimmed");
+        Post b = repo.create("bob","general","Second");
+        assertEq(2, b.getId(), "next id follows the highest");
+        assertEq(a, repo.findById(1).orElse(null), "found by id");
+        assertTrue(repo.findById(9).isEmpty(), "unknown id is empty");
+        assertEq(2, repo.findAll().size(), "all");
+        assertEq(Set.of(1,2), idSet(repo.findByThread("GENERAL")), "thread ignores case");
+
+        repo.createAll(List.of(Post.createNew(40,"carol","math","Imported")));
+        assertEq(41, repo.nextId(), "ids continue after an import");
+        pass("create_and_find");
+    }
+
+    private void update_replaces_the_stored_version(){
+        PostRepository repo = factory.get();
+        repo.create(1,"alice","math","Recursion basics");
+        Post flagged = repo.update(repo.findById(1).get().withModeration(Moderation.FLAGGED));
+        assertEq(Moderation.FLAGGED, repo.findById(1).get().getModeration(), "stored");
+        assertEq(flagged.getModeration(), Moderation.FLAGGED, "returned");
+
+        repo.update(repo.findById(1).get().withContent("Iteration basics").withThread("cs"));
+        assertEq(0, repo.search(new SearchSpec().query("recursion")).size(), "old text gone");
+        assertEq(List.of(1), ids(repo.search(new SearchSpec().query("iteration"))), "new text found");
+        assertEq(List.of(1), ids(repo.findByThread("cs")), "new thread");
+        assertEq(0, repo.findByThread("math").size(), "old thread");
+
+        repo.update(repo.findById(1).get().softDeleted());
+        assertEq(0, repo.search(new SearchSpec()).size(), "deleted through update");
+        pass("update_replaces_the_stored_version");
+    }
+
+    private void unknown_ids_are_rejected(){
+        PostRepository repo = factory.get();
+        repo.create(1,"alice","cs","x");
+        expect(NoSuchElementException.class, () -> repo.update(Post.createNew(7,"a","cs","y")), "update");
+        expect(NoSuchElementException.class, () -> repo.updateContent(7,"y"), "updateContent");
+        expect(NoSuchElementException.class, () -> repo.moveToThread(7,"math"), "moveToThread");
+        expect(NoSuchElementException.class, () -> repo.moderate(7, Moderation.HIDDEN), "moderate");
+        expect(NoSuchElementException.class, () -> repo.softDelete(7), "softDelete");
+        expect(NoSuchElementException.class, () -> repo.search(new SearchSpec().after(7)), "search cursor");
+        expect(NoSuchElementException.class, () -> repo.findByAuthor("alice", 7, 1), "author cursor");
+        expect(IllegalArgumentException.class, () -> repo.search(new SearchSpec().where("(open")), "bad query");
+        assertEq(1, repo.findAll().size(), "nothing stored by failures");
+        pass("unknown_ids_are_rejected");
+    }
+
+    private void search_filters_visibility(){
+        PostRepository repo = factory.get();
+        for (int id = 1; id <= 5; id++) repo.create(id,"u"+id,"cs","topic "+id);
+        repo.moderate(2, Moderation.HIDDEN);
+        repo.moderate(3, Moderation.FLAGGED);
+        repo.softDelete(4);
+
+        assertEq(List.of(5,3,2,1), ids(repo.search(new SearchSpec())), "deleted left out");
+        assertEq(List.of(5,4,3,2,1), ids(repo.search(new SearchSpec().includeDeleted(true))), "deleted included");
+        assertEq(List.of(5,3,1), ids(repo.search(new SearchSpec().excludeHidden(true))), "hidden left out");
+        assertEq(List.of(3), ids(repo.search(new SearchSpec().moderation(Moderation.FLAGGED))), "flagged only");
+        assertEq(List.of(5,1), ids(repo.search(new SearchSpec().moderation(Moderation.NORMAL))), "normal only");
+        assertEq(List.of(3), ids(repo.search(new SearchSpec().query("TOPIC 3"))), "keyword ignores case");
+        assertEq(0, repo.search(new SearchSpec().thread("math")).size(), "other thread");
+        pass("search_filters_visibility");
+    }
+
+    private void search_pages_newest_first(){
+        PostRepository repo = factory.get();
+        for (int id = 1; id <= 7; id++) repo.create(id,"u","cs","post "+id);
+        assertEq(List.of(7,6,5), ids(repo.search(new SearchSpec().limit(3))), "first page");
+        assertEq(List.of(4,3,2), ids(repo.search(new SearchSpec().limit(3).after(5))), "next page");
+        assertEq(List.of(1), ids(repo.search(new SearchSpec().limit(3).after(2))), "last page");
+        assertEq(List.of(6,4), ids(repo.search(new SearchSpec().query("post").where("NOT \"post 5\"").limit(2).after(7))), "filtered page");
+        pass("search_pages_newest_first");
+    }
+
+    private void relevance_returns_the_same_posts(){
+        PostRepository repo = factory.get();
+        repo.create(1,"a","cs","recursion recursion recursion");
+        repo.create(2,"b","cs","a note on recursion");
+        repo.create(3,"c","cs","unrelated");
+        Set<Integer> newest = idSet(repo.search(new SearchSpec().query("recursion")));
+        Set<Integer> ranked = idSet(repo.search(new SearchSpec().query("recursion").order(SearchSpec.Order.RELEVANCE)));
+        assertEq(Set.of(1,2), newest, "matches");
+        assertEq(newest, ranked, "same posts");
+        pass("relevance_returns_the_same_posts");
+    }
+
+    private void fuzzy_tolerates_typos(){
+        PostRepository repo = factory.get();
+        repo.create(1,"a","cs","Recursion basics explained");
+        repo.create(2,"b","cs","Stacks and queues");
+        assertEq(0, repo.search(new SearchSpec().query("recursoin")).size(), "exact misses");
+        assertEq(List.of(1), ids(repo.search(new SearchSpec().query("recursoin").fuzzy(true))), "one swap");
+        assertEq(List.of(1), ids(repo.search(new SearchSpec().query("recurison explai").fuzzy(true))), "unfinished last word");
+        assertEq(0, repo.search(new SearchSpec().query("stak").fuzzy(true)).size(), "short words stay exact");
+        pass("fuzzy_tolerates_typos");
+    }
+
+    private void structured_queries(){
+        PostRepository repo = factory.get();
+        repo.create(1,"alice","Exam Prep","Binary trees");
+        repo.create(2,"bob","Exam Prep","Binary search");
+        repo.create(3,"alice","general","Graphs");
+        repo.moderate(2, Moderation.FLAGGED);
+        assertEq(List.of(3,1), ids(repo.search(new SearchSpec().where("author:ALICE"))), "author");
+        assertEq(List.of(2,1), ids(repo.search(new SearchSpec().where("thread:\"exam prep\""))), "quoted thread");
+        assertEq(List.of(2), ids(repo.search(new SearchSpec().where("binary moderation:FLAGGED"))), "AND");
+        assertEq(List.of(3,2), ids(repo.search(new SearchSpec().where("graphs OR author:bob"))), "OR");
+        assertEq(List.of(1), ids(repo.search(new SearchSpec().query("binary").where("NOT author:bob"))), "NOT with query");
+        pass("structured_queries");
+    }
+
+    private void author_history_pages(){
+        PostRepository repo = factory.get();
+        for (int id = 1; id <= 6; id++) repo.create(id, id % 2 == 0 ? "Alice" : "bob", "cs", "p"+id);
+        repo.softDelete(4);
+        assertEq(List.of(6,4,2), ids(repo.findByAuthor("alice", null, 0)), "all, deleted included");
+        assertEq(List.of(6,4), ids(repo.findByAuthor("ALICE", null, 2)), "first page");
+        assertEq(List.of(2), ids(repo.findByAuthor("alice", 4, 2)), "next page");
+        assertEq(3, repo.countByAuthor("Bob"), "count");
+        assertEq(0, repo.findByAuthor("nobody", null, 0).size(), "unknown author");
+        pass("author_history_pages");
+    }
+
+    private void bulk_changes_report_each_id(){
+        PostRepository repo = factory.get();
+        for (int id = 1; id <= 3; id++) repo.create(id,"u","cs","spam "+id);
+        var hidden = repo.moderateAll(List.of(1,2,9), Moderation.HIDDEN);
+        assertEq(List.of(1,2,9), new ArrayList<>(hidden.keySet()), "one result per id, in order");
+        assertTrue(hidden.get(9).isEmpty(), "unknown id reported");
+        assertEq(Moderation.HIDDEN, hidden.get(2).get().getModeration(), "changed version returned");
+        var deleted = repo.softDeleteAll(List.of(3, 8));
+        assertTrue(deleted.get(3).get().isDeleted() && deleted.get(8).isEmpty(), "delete results");
+        assertEq(List.of(2,1), ids(repo.search(new SearchSpec())), "applied");
+        pass("bulk_changes_report_each_id");
+    }
+
+    private void history_keeps_every_version(){
+        PostRepository repo = factory.get();
+        repo.create(1,"alice","cs","Recursion basics");
+        assertEq(List.of("Recursion basics"), contents(repo.history(1)), "original only");
+
+        for (int v = 1; v <= 20; v++) repo.updateContent(1, "Recursion basics, take " + v);
+        repo.moderate(1, Moderation.FLAGGED);
+        repo.moveToThread(1, "math");
+        repo.update(repo.findById(1).get().withContent("Recursion basics, take 20"));
+        List<EditHistory.Revision> history = repo.history(1);
+        assertEq(21, history.size(), "one version per content change");
+        assertEq("Recursion basics, take 7", history.get(7).getContent(), "middle version");
+        assertEq(repo.findById(1).get().getRawContent(), history.get(20).getContent(), "last is current");
+        assertEq(20, history.get(20).getVersion(), "numbered from 0");
+
+        repo.softDelete(1);
+        assertEq(21, repo.history(1).size(), "delete is not an edit");
+        expect(NoSuchElementException.class, () -> repo.history(7), "unknown id");
+        pass("history_keeps_every_version");
+    }
+
+    private void same_results_as_baseline(){
+        PostRepository repo = factory.get();
+        PostRepository baseline = new ScanningPostRepository();
+        Random rnd = new Random(42);
+        String[] words = {"recursion", "stacks", "queues", "graphs", "binary", "trees", "exam", "help"};
+        String[] threads = {"general", "Math", "cs"};
+
+        // Posts spread over thirty days, so date bounds cut the board anywhere.
+        LocalDateTime start = LocalDateTime.of(2025, 10, 1, 0, 0);
+        for (int id = 1; id <= 400; id++) {
+            Post p = Post.restore(id, "user"+rnd.nextInt(12), threads[rnd.nextInt(threads.length)],
+                    words[rnd.nextInt(words.length)] + " " + words[rnd.nextInt(words.length)] + " #" + id,
+                    start.plusMinutes(rnd.nextInt(30 * 24 * 60)), null, false, Moderation.NORMAL);
+            repo.createAll(List.of(p));
+            baseline.createAll(List.of(p));
+        }
+        for (int i = 0; i < 300; i++) {
+            int id = 1 + rnd.nextInt(400);
+            switch (rnd.nextInt(4)) {
+                case 0 -> { repo.moderate(id, Moderation.FLAGGED); baseline.moderate(id, Moderation.FLAGGED); }
+                case 1 -> { repo.moderate(id, Moderation.HIDDEN); baseline.moderate(id, Moderation.HIDDEN); }
+                case 2 -> { repo.softDelete(id); baseline.softDelete(id); }
+                default -> {
+                    String c = words[rnd.nextInt(words.length)] + " edited";
+                    repo.updateContent(id, c);
+                    baseline.updateContent(id, c);
+                }
+            }
+        }
+
+        int mismatches = 0;
+        for (int i = 0; i < 300; i++) {
+            SearchSpec spec = new SearchSpec();
+            if (rnd.nextBoolean()) {
+                String w = words[rnd.nextInt(words.length)];
+                spec.query(w.substring(0, Math.min(w.length(), 3 + rnd.nextInt(3))));
+            }
+            if (rnd.nextInt(3) == 0) spec.thread(threads[rnd.nextInt(threads.length)].toUpperCase());
+            if (rnd.nextInt(4) == 0) spec.includeDeleted(true);
+            if (rnd.nextInt(4) == 0) spec.excludeHidden(true);
+            if (rnd.nextInt(5) == 0) spec.moderation(Moderation.values()[rnd.nextInt(3)]);
+            List<String> where = new ArrayList<>();
+            if (rnd.nextInt(5) == 0) where.add("author:user" + rnd.nextInt(12));
+            if (rnd.nextInt(3) == 0) where.add("after:" + start.plusMinutes(rnd.nextInt(30 * 24 * 60)).toString().substring(0, 16));
+            if (rnd.nextInt(3) == 0) where.add("before:" + start.plusMinutes(rnd.nextInt(30 * 24 * 60)).toString().substring(0, 16));
+            if (!where.isEmpty()) spec.where(String.join(" ", where));
+            if (rnd.nextInt(3) == 0) spec.limit(1 + rnd.nextInt(20));
+            List<Integer> expected = ids(baseline.search(spec));
+            if (!expected.isEmpty() && rnd.nextBoolean()) {
+                spec.after(expected.get(rnd.nextInt(expected.size())));
+                expected = ids(baseline.search(spec));
+            }
+            if (!expected.equals(ids(repo.search(spec)))) mismatches++;
+        }
+        assertEq(0, mismatches, "searches that differ from a plain scan");
+        pass("same_results_as_baseline");
+    }
+
+    private static List<String> contents(List<EditHistory.Revision> history) {
+        List<String> out = new ArrayList<>();
+        for (EditHistory.Revision r : history) out.add(r.getContent());
+        return out;
+    }
+
+    private static List<Integer> ids(List<Post> posts){
+        List<Integer> out = new ArrayList<>();
+        for (Post p : posts) out.add(p.getId());
+        return out;
+    }
+
+    private static Set<Integer> idSet(List<Post> posts){
+        return new HashSet<>(ids(posts));
+    }
+
+    private void expect(Class<? extends RuntimeException> type, Runnable r, String m){
+        try { r.run(); fail("expected "+type.getSimpleName()+": "+m); }
+        catch (RuntimeException e) { if (!type.isInstance(e)) fail("expected "+type.getSimpleName()+": "+m+" got "+e); }
+    }
+
+    // tiny asserts
+    private void assertTrue(boolean c,String m){ if(!c) fail("assertTrue: "+m); }
+    private void assertEq(Object e,Object a,String m){ if(e==null? a!=null:!e.equals(a)) fail("assertEq: "+m+" exp="+e+" act="+a); }
+    private void pass(String n){ passed++; System.out.println("✅ "+backend+": "+n); }
+    private void fail(String m){ failed++; System.err.println("❌ "+backend+": "+m); }
+}
@@ -2,7 +2,14 @@ package studentPosts;
 
 import entityClasses.Post;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class PostServiceTest {
     private int passed=0, failed=0;
@@ -11,6 +18,32 @@ public class PostServiceTest {
     private void run() throws Exception {
         crud_flow_create_read_update_delete();
         search_thread_query_deleted_flag();
+        search_index_follows_edits();
+        thread_index_follows_moves();
+        search_pages_newest_first();
+        snapshots_ignore_later_writes();
+        persistent_map_shares_and_finds();
+        persistent_sorted_map_matches_tree_map();
+        authors_and_threads_are_shared();
+        columnar_store_round_trips();
+        parallel_scan_matches_sequential();
+        fuzzy_search_tolerates_typos();
+        relevance_ranks_best_match_first();
+        structured_queries_plan_and_filter();
+        date_bounds_page_with_cursor();
+        search_cache_serves_until_write();
+        visibility_bitmaps_filter_states();
+        id_bitmap_set_operations();
+        author_index_pages_history();
+        bulk_mutations_report_each_id();
+        failed_batch_changes_nothing();
+        change_feed_delivers_in_order();
+        change_feed_groups_batches();
+        change_feed_reports_overflow();
+        change_feed_drops_failing_listener();
+        listeners_search_the_published_version();
+        edit_history_rebuilds_every_version();
+        tiered_bodies_read_back_unchanged();
         notFound_errors();
 
         System.out.printf("%nPostServiceTest %s (%d/%d)%n",
@@ -54,6 +87,651 @@ public class PostServiceTest {
         pass("search_thread_query_deleted_flag");
     }
 
+    private void search_index_follows_edits(){
+        InMemoryPostRepository repo = new InMemoryPostRepository();
+        repo.create(20,"dee","cs","Recursion and stacks");
+        repo.create(21,"eli","cs","Loops, arrays and lists");
+
+        assertEq(1, repo.search(new SearchSpec().query("recurs")).size(), "partial word");
+        assertEq(1, repo.search(new SearchSpec().query("ION AND ST")).size(), "phrase across words");
+        assertEq(2, repo.search(new SearchSpec().query("and")).size(), "common word");
+        assertEq(0, repo.search(new SearchSpec().query("and lists and")).size(), "no such phrase");
+
+        repo.updateContent(20,"Iteration only");
+        assertEq(0, repo.search(new SearchSpec().query("recursion")).size(), "old text unindexed");
+        assertEq(1, repo.search(new SearchSpec().query("iteration")).size(), "new text indexed");
+        assertEq(2, repo.search(new SearchSpec().query(" ")).size(), "no tokens falls back to scan");
+        pass("search_index_follows_edits");
+    }
+
+    private void thread_index_follows_moves(){
+        InMemoryPostRepository repo = new InMemoryPostRepository();
+        repo.create(30,"fay","Math","proofs");
+        repo.create(31,"gus","math","limits");
+        repo.create(32,"hal","cs","proofs of programs");
+
+        assertEq(2, repo.findByThread("MATH").size(), "case-insensitive thread");
+        repo.moveToThread(30,"cs");
+        assertEq(1, repo.findByThread("math").size(), "moved out");
+        assertEq(2, repo.findByThread("cs").size(), "moved in");
+        assertEq(2, repo.search(new SearchSpec().thread("cs").query("proofs")).size(), "thread + keyword");
+        assertEq(0, repo.search(new SearchSpec().thread("math").query("proofs")).size(), "old thread empty");
+        pass("thread_index_follows_moves");
+    }
+
+    private void search_pages_newest_first(){
+        InMemoryPostRepository repo = new InMemoryPostRepository();
+        for (int id = 1; id <= 5; id++) repo.create(id,"ivy","general","post "+id);
+        repo.softDelete(4);
+
+        var first = repo.search(new SearchSpec().limit(2));
+        assertEq(List.of(5,3), ids(first), "first page skips deleted");
+        var second = repo.search(new SearchSpec().limit(2).after(3));
+        assertEq(List.of(2,1), ids(second), "second page");
+        assertEq(0, repo.search(new SearchSpec().limit(2).after(1)).size(), "past the end");
+
+        var withKeyword = repo.search(new SearchSpec().query("post").limit(2).after(5));
+        assertEq(List.of(3,2), ids(withKeyword), "keyword page");
+        assertEq(List.of(5,4,3,2,1), ids(repo.search(new SearchSpec().includeDeleted(true))), "all, newest first");
+        pass("search_pages_newest_first");
+    }
+
+    private void snapshots_ignore_later_writes(){
+        InMemoryPostRepository repo = new InMemoryPostRepository();
+        repo.create(40,"jo","general","first");
+        var before = repo.findAll();
+        PersistentPostMap snap = repo.snapshot();
+
+        repo.updateContent(40,"changed");
+        repo.create(41,"kim","general","second");
+        assertEq(1, before.size(), "old listing keeps its size");
+        assertEq("first", before.get(0).getContent(), "old listing keeps old version");
+        assertEq("first", snap.get(40).getContent(), "old snapshot keeps old version");
+        assertTrue(snap.get(41)==null, "old snapshot misses new post");
+        assertEq(2, repo.findAll().size(), "new listing sees both");
+        assertEq("changed", repo.snapshot().get(40).getContent(), "new snapshot sees edit");
+        pass("snapshots_ignore_later_writes");
+    }
+
+    private void persistent_map_shares_and_finds(){
+        PersistentPostMap m = PersistentPostMap.empty();
+        int[] keys = new int[2000];
+        for (int i = 0; i < 1000; i++) keys[i] = i + 1;
+        for (int i = 1000; i < 2000; i++) keys[i] = (i * 0x9E3779B9) | 1;   // spread over all bits
+        for (int k : keys) m = m.with(Post.createNew(k,"lee","t","x"));
+
+        PersistentPostMap half = m;
+        Post replaced = Post.createNew(keys[0],"lee","t","y");
+        m = m.with(replaced);
+        assertEq(2000, m.size(), "size after replace");
+        assertEq("y", m.get(keys[0]).getContent(), "replaced value");
+        assertEq("x", half.get(keys[0]).getContent(), "earlier version untouched");
+        assertTrue(m.get(-7)==null && m.get(0)==null, "missing keys");
+
+        int seen = 0;
+        for (int k : keys) if (m.get(k)!=null && m.get(k).getId()==k) seen++;
+        assertEq(2000, seen, "every key found");
+        Set<Integer> walked = new HashSet<>();
+        for (Post p : m) walked.add(p.getId());
+        assertEq(2000, walked.size(), "iteration visits every post once");
+        pass("persistent_map_shares_and_finds");
+    }
+
+    private void persistent_sorted_map_matches_tree_map(){
+        java.util.Random rnd = new java.util.Random(11);
+        java.util.TreeMap<Integer,Integer> expected = new java.util.TreeMap<>();
+        PersistentSortedMap<Integer,Integer> m = PersistentSortedMap.empty();
+        Object edit = new Object();
+        for (int i = 0; i < 5000; i++) {
+            int k = rnd.nextInt(3000);
+            if (rnd.nextInt(4) == 0) { expected.remove(k); m = m.without(k, edit); }
+            else { expected.put(k, i); m = m.with(k, i, edit); }
+        }
+        assertEq(expected.size(), m.size(), "size");
+        assertEq(new ArrayList<>(expected.keySet()), m.keys().collect(java.util.stream.Collectors.toList()), "keys in order");
+
+        PersistentSortedMap<Integer,Integer> before = m;
+        List<Integer> beforeKeys = before.keys().collect(java.util.stream.Collectors.toList());
+        Object next = new Object();
+        for (int k = 0; k < 3000; k += 2) m = m.without(k, next);
+        for (int k = 3000; k < 3100; k++) m = m.with(k, -k, next);
+        assertEq(beforeKeys, before.keys().collect(java.util.stream.Collectors.toList()), "published version untouched");
+        assertTrue(before.get(3050) == null && m.get(3050) == -3050, "new key only in the new version");
+        assertTrue(m.keys().allMatch(k -> k % 2 == 1 || k >= 3000), "removed keys gone");
+
+        assertEq(new ArrayList<>(expected.subMap(100, false, 900, true).keySet()),
+                before.keys(100, false, 900, true).collect(java.util.stream.Collectors.toList()), "range");
+        assertEq(0L, before.keys(900, false, 100, true).count(), "empty range");
+        assertEq(new ArrayList<>(expected.tailMap(2990, true).keySet()),
+                before.keys(2990, true, null, false).collect(java.util.stream.Collectors.toList()), "open range");
+        pass("persistent_sorted_map_matches_tree_map");
+    }
+
+    private void authors_and_threads_are_shared(){
+        InMemoryPostRepository repo = new InMemoryPostRepository();
+        Post a = repo.create(50,new String("mo")," general ","one");
+        Post b = repo.create(51,new String("mo"),new String("general"),"two");
+        assertTrue(a.getAuthor()==b.getAuthor(), "one author instance");
+        assertTrue(a.getThread()==b.getThread(), "one thread instance");
+        assertEq("general", a.getThread(), "still trimmed");
+
+        repo.create(52,"ned","cs","three");
+        Post moved = repo.moveToThread(52,new String("general"));
+        assertTrue(moved.getThread()==a.getThread(), "moved post shares thread");
+        pass("authors_and_threads_are_shared");
+    }
+
+    private void columnar_store_round_trips(){
+        InMemoryPostRepository repo = new InMemoryPostRepository();
+        repo.create(60,"ola","Math","naïve limits ∑");
+        repo.create(61,"pat","cs","arrays");
+        repo.create(62,"ola","math","series");
+        repo.updateContent(61,"arrays, edited");
+        repo.moderate(62, Post.Moderation.FLAGGED);
+        repo.softDelete(60);
+
+        ColumnarPostStore cols = ColumnarPostStore.of(repo.findAll());
+        for (Post p : repo.findAll()) {
+            Post c = cols.findById(p.getId()).orElseThrow();
+            assertEq(p.getRawContent(), c.getRawContent(), "content "+p.getId());
+            assertEq(p.getCreatedAt(), c.getCreatedAt(), "createdAt "+p.getId());
+            assertEq(p.getEditedAt(), c.getEditedAt(), "editedAt "+p.getId());
+            assertEq(p.isDeleted(), c.isDeleted(), "deleted "+p.getId());
+            assertEq(p.getModeration(), c.getModeration(), "moderation "+p.getId());
+            assertEq(p.getThread(), c.getThread(), "thread "+p.getId());
+        }
+        assertEq(List.of(62), ids(cols.select("MATH", null, null, false, 0)), "thread filter skips deleted");
+        assertEq(2, cols.count("math", "ola", null, true), "author + thread");
+        assertEq(1, cols.count(null, null, Post.Moderation.FLAGGED, true), "moderation");
+        assertEq(0, cols.count("nope", null, null, true), "unknown thread");
+
+        for (int i = 0; i < 50; i++) cols.put(repo.updateContent(61,"rewrite "+i));
+        assertEq("rewrite 49", cols.findById(61).orElseThrow().getRawContent(), "after compaction");
+        assertEq("series", cols.findById(62).orElseThrow().getRawContent(), "others survive compaction");
+        assertEq(3, cols.size(), "edits overwrite rows");
+        pass("columnar_store_round_trips");
+    }
+
+    private void parallel_scan_matches_sequential(){
+        InMemoryPostRepository repo = new InMemoryPostRepository();
+        for (int id = 1; id <= 3000; id++) {
+            repo.create(id,"u"+(id%7),"t"+(id%5),(id%3==0 ? "see: item #"+id : "plain text "+id));
+        }
+        for (int id = 3; id <= 3000; id += 30) repo.softDelete(id);
+
+        List<SearchSpec> specs = List.of(
+                new SearchSpec().query(": ").limit(25),                 // no tokens: full scan
+                new SearchSpec().query(": ").limit(25).after(2997),
+                new SearchSpec().query("text").limit(40),                // broad candidate set
+                new SearchSpec().thread("t2").query("#").includeDeleted(true),
+                new SearchSpec().query("u3"));
+        List<List<Integer>> sequential = new ArrayList<>();
+        repo.setSearchCacheSize(0);     // run every search for real
+        repo.setParallelThreshold(Integer.MAX_VALUE);
+        for (SearchSpec s : specs) sequential.add(ids(repo.search(s)));
+
+        repo.setParallelThreshold(1);
+        for (int i = 0; i < specs.size(); i++) {
+            assertEq(sequential.get(i), ids(repo.search(specs.get(i))), "parallel spec "+i);
+        }
+        assertEq(25, sequential.get(0).size(), "page filled");
+        pass("parallel_scan_matches_sequential");
+    }
+
+    private void fuzzy_search_tolerates_typos(){
+        InMemoryPostRepository repo = new InMemoryPostRepository();
+        repo.create(70,"quinn","cs","Recursion with base cases");
+        repo.create(71,"rae","cs","Iteration over arrays");
+        repo.create(72,"sam","math","Recurrence relations");
+
+        assertEq(0, repo.search(new SearchSpec().query("recursoin")).size(), "exact search misses typo");
+        assertEq(List.of(70), ids(repo.search(new SearchSpec().query("recursoin").fuzzy(true))), "swapped letters");
+        assertEq(List.of(70), ids(repo.search(new SearchSpec().query("recurison bas").fuzzy(true))), "two words, last unfinished");
+        assertEq(List.of(71), ids(repo.search(new SearchSpec().query("iteraton").fuzzy(true))), "missing letter");
+        assertEq(List.of(72,70), ids(repo.search(new SearchSpec().query("recur").fuzzy(true))), "prefix still matches");
+        assertEq(0, repo.search(new SearchSpec().query("arxays").thread("math").fuzzy(true)).size(), "thread still applies");
+        assertEq(0, repo.search(new SearchSpec().query("cat").fuzzy(true)).size(), "short words stay exact");
+
+        repo.updateContent(70,"Loops only");
+        assertEq(0, repo.search(new SearchSpec().query("recursoin").fuzzy(true)).size(), "edited words leave the trigram index");
+        pass("fuzzy_search_tolerates_typos");
+    }
+
+    private void relevance_ranks_best_match_first(){
+        InMemoryPostRepository repo = new InMemoryPostRepository();
+        repo.create(80,"tia","cs","Recursion: a function that calls itself. Recursion needs a base case.");
+        repo.create(81,"uma","cs","Long notes on loops, arrays, lists, maps and sets. Recursion is later.");
+        repo.create(82,"vic","recursion","Questions about it go here");
+        for (int id = 83; id < 90; id++) repo.create(id,"wes","general","Unrelated post number "+id);
+        repo.create(90,"xan","general","Newest post, only mentions recursion once among many many other words");
+
+        SearchSpec ranked = new SearchSpec().query("recursion").order(SearchSpec.Order.RELEVANCE);
+        List<Integer> order = ids(repo.search(ranked));
+        assertEq(4, order.size(), "same matches as newest-first");
+        assertEq(90, ids(repo.search(new SearchSpec().query("recursion"))).get(0), "newest-first puts noise on top");
+        assertEq(List.of(82,80), order.subList(0,2), "thread boost, then repeated short body");
+        assertEq(order.subList(0,2), ids(repo.search(ranked.limit(2))), "top-K page");
+        assertEq(order.subList(2,4), ids(repo.search(new SearchSpec().query("recursion")
+                .order(SearchSpec.Order.RELEVANCE).limit(2).after(80))), "next page after cursor");
+        assertEq(List.of(90,89), ids(repo.search(new SearchSpec().query(" ").order(SearchSpec.Order.RELEVANCE).limit(2))),
+                "no words to score: newest first");
+        pass("relevance_ranks_best_match_first");
+    }
+
+    private void structured_queries_plan_and_filter(){
+        InMemoryPostRepository repo = new InMemoryPostRepository();
+        repo.create(100,"Alice","Exam Prep","Recursion practice problems");
+        repo.create(101,"bob","Exam Prep","Sorting practice");
+        repo.create(102,"alice","general","Office hours moved");
+        repo.create(103,"carl","general","Recursion base case question");
+        repo.moderate(101, Post.Moderation.FLAGGED);
+        repo.moderate(103, Post.Moderation.FLAGGED);
+
+        assertEq(List.of(102,100), where(repo,"author:alice"), "author, case-insensitive");
+        assertEq(List.of(101), where(repo,"thread:\"exam prep\" moderation:flagged"), "quoted thread + moderation");
+        assertEq(List.of(103,101), where(repo,"moderation:FLAGGED"), "moderation only");
+        assertEq(List.of(103,100), where(repo,"\"recursion\" AND (thread:general OR author:alice)"), "AND / OR / parens");
+        assertEq(List.of(102,101), where(repo,"NOT recursion"), "NOT");
+        assertEq(List.of(101), where(repo,"practice -recursion"), "minus");
+        String today = java.time.LocalDate.now().toString();
+        String tomorrow = java.time.LocalDate.now().plusDays(1).toString();
+        assertEq(4, where(repo,"after:"+today+" before:"+tomorrow).size(), "date range");
+        assertEq(0, where(repo,"after:"+tomorrow).size(), "future range");
+        assertEq(List.of(103), ids(repo.search(new SearchSpec().query("base").where("moderation:FLAGGED"))), "ANDed with query");
+
+        PostQuery.Indexes none = new PostQuery.Indexes() {
+            public Set<Integer> keyword(String f){ return Set.of(1,2,3); }
+            public Set<Integer> author(String f){ return Set.of(1); }
+            public Set<Integer> thread(String f){ return Set.of(1,2); }
+            public Set<Integer> moderation(Post.Moderation m){ return null; }
+        };
+        assertTrue(PostQuery.parse("recursion author:a thread:t").plan(none).toString().startsWith("index(1)"), "smallest index drives");
+        assertTrue(PostQuery.parse("NOT recursion after:"+today).plan(none).toString().startsWith("range("), "range when no index");
+        assertTrue(PostQuery.parse("recursion OR moderation:HIDDEN").plan(none).toString().startsWith("scan"), "unindexed OR branch scans");
+
+        for (String bad : List.of("(recursion", "moderation:weird", "before:yesterday", "\"open", "OR x")) {
+            try { PostQuery.parse(bad); fail("expected parse error: "+bad); }
+            catch (IllegalArgumentException ok) { }
+        }
+        pass("structured_queries_plan_and_filter");
+    }
+
+    private void date_bounds_page_with_cursor(){
+        InMemoryPostRepository repo = new InMemoryPostRepository();
+        List<Post> board = new ArrayList<>();
+        for (int day = 1; day <= 6; day++) {
+            board.add(Post.restore(day, "u", "cs", "day " + day,
+                    java.time.LocalDateTime.of(2025, 10, day, 12, 0), null, false, Post.Moderation.NORMAL));
+        }
+        repo.createAll(board);
+
+        SearchSpec before = new SearchSpec().where("before:2025-10-05").limit(2);
+        assertEq(List.of(4,3), ids(repo.search(before)), "first page below the bound");
+        assertEq(List.of(2,1), ids(repo.search(before.after(3))), "next page");
+        assertEq(List.of(4,3), ids(repo.search(before.after(6))), "cursor above the bound");
+        SearchSpec range = new SearchSpec().where("after:2025-10-02 before:2025-10-05");
+        assertEq(List.of(3,2), ids(repo.search(range.after(4))), "cursor inside the range");
+        assertEq(List.of(), ids(repo.search(range.after(2))), "cursor at the bottom");
+        assertEq(List.of(), ids(repo.search(new SearchSpec().where("after:2025-10-05").after(3))), "cursor below the range");
+        pass("date_bounds_page_with_cursor");
+    }
+
+    private void search_cache_serves_until_write(){
+        InMemoryPostRepository repo = new InMemoryPostRepository();
+        repo.setSearchCacheSize(2);
+        repo.create(1,"alice","cs","Recursion basics");
+        repo.create(2,"bob","cs","Stacks and queues");
+        SearchCache cache = repo.getSearchCache();
+
+        var first = repo.search(new SearchSpec().thread("cs"));
+        var again = repo.search(new SearchSpec().thread("CS"));
+        assertTrue(first == again, "normalized spec served from cache");
+        assertEq(1L, cache.hits(), "one hit");
+        try { again.clear(); fail("cached results are read-only"); }
+        catch (UnsupportedOperationException ok) { }
+
+        long gen = repo.generation();
+        repo.moderate(2, Post.Moderation.HIDDEN);
+        assertTrue(repo.generation() > gen, "write bumps generation");
+        var after = repo.search(new SearchSpec().thread("cs"));
+        assertTrue(after != first, "stale entry not served");
+        assertEq(List.of(2,1), ids(after), "fresh results");
+
+        repo.search(new SearchSpec().query("stacks"));
+        repo.search(new SearchSpec().query("queues"));
+        assertEq(2, cache.size(), "bounded");
+        long misses = cache.misses();
+        repo.search(new SearchSpec().thread("cs"));
+        assertEq(misses + 1, cache.misses(), "least recently used evicted");
+        pass("search_cache_serves_until_write");
+    }
+
+    private void visibility_bitmaps_filter_states(){
+        InMemoryPostRepository repo = new InMemoryPostRepository();
+        for (int id = 1; id <= 6; id++) repo.create(id,"u"+id,"cs","topic "+id);
+        repo.moderate(2, Post.Moderation.HIDDEN);
+        repo.moderate(3, Post.Moderation.FLAGGED);
+        repo.moderate(4, Post.Moderation.FLAGGED);
+        repo.softDelete(4);
+        repo.moderate(5, Post.Moderation.HIDDEN);
+        repo.moderate(5, Post.Moderation.NORMAL);   // un-hidden again
+
+        assertEq(List.of(6,5,3,2,1), ids(repo.search(new SearchSpec())), "deleted left out");
+        assertEq(List.of(6,5,3,1), ids(repo.search(new SearchSpec().excludeHidden(true))), "hidden left out");
+        assertEq(List.of(6,5,3,1), ids(repo.search(new SearchSpec().thread("cs").excludeHidden(true))), "with candidates");
+        assertEq(List.of(3), ids(repo.search(new SearchSpec().moderation(Post.Moderation.FLAGGED))), "flagged, not deleted");
+        assertEq(List.of(4,3), ids(repo.search(new SearchSpec().moderation(Post.Moderation.FLAGGED).includeDeleted(true))), "flagged");
+        assertEq(List.of(6,5,1), ids(repo.search(new SearchSpec().moderation(Post.Moderation.NORMAL))), "normal");
+        assertEq(List.of(5,3), ids(repo.search(new SearchSpec().query("topic").limit(2).after(6).excludeHidden(true))), "paged");
+        assertEq(List.of(2), where(repo,"moderation:HIDDEN"), "query uses the bitmap");
+        pass("visibility_bitmaps_filter_states");
+    }
+
+    private void id_bitmap_set_operations(){
+        IdBitmap evens = new IdBitmap(), threes = new IdBitmap();
+        Set<Integer> e = new HashSet<>(), t = new HashSet<>();
+        for (int i = 0; i < 200_000; i += 2) { evens.add(i); e.add(i); }    // bitmap chunks
+        for (int i = 0; i < 200_000; i += 3000) { threes.add(i); t.add(i); } // array chunks
+        threes.add(70_001); t.add(70_001);
+        assertEq(e, new HashSet<>(evens), "evens");
+        assertTrue(evens.contains(65_536) && !evens.contains(65_537), "contains");
+
+        Set<Integer> both = new HashSet<>(e); both.retainAll(t);
+        Set<Integer> either = new HashSet<>(e); either.addAll(t);
+        Set<Integer> onlyEvens = new HashSet<>(e); onlyEvens.removeAll(t);
+        assertEq(both, new HashSet<>(evens.and(threes)), "and");
+        assertEq(either, new HashSet<>(evens.or(threes)), "or");
+        assertEq(onlyEvens, new HashSet<>(evens.andNot(threes)), "andNot");
+        assertEq(either.size(), evens.or(threes).size(), "size");
+
+        for (int i = 0; i < 200_000; i += 4) evens.remove(i);   // bitmap chunks shrink to arrays
+        assertEq(50_000, evens.size(), "after removes");
+        assertTrue(!evens.contains(8) && evens.contains(10), "removed");
+        List<Integer> order = new ArrayList<>(IdBitmap.of(List.of(70_000, 3, 65_536, 9)));
+        assertEq(List.of(3, 9, 65_536, 70_000), order, "ascending");
+        pass("id_bitmap_set_operations");
+    }
+
+    private void author_index_pages_history(){
+        InMemoryPostRepository repo = new InMemoryPostRepository();
+        for (int id = 1; id <= 9; id++) repo.create(id, id % 3 == 0 ? "Alice" : "bob", "cs", "post "+id);
+        repo.softDelete(6);
+
+        assertEq(List.of(9,6,3), ids(repo.findByAuthor(" alice", null, 0)), "all, newest first");
+        assertEq(List.of(9,6), ids(repo.findByAuthor("ALICE", null, 2)), "first page");
+        assertEq(List.of(3), ids(repo.findByAuthor("alice", 6, 2)), "next page");
+        assertEq(6, repo.countByAuthor("Bob"), "count");
+        assertEq(0, repo.findByAuthor("carol", null, 0).size(), "unknown author");
+        assertEq(List.of(9,3), where(repo, "author:alice"), "query plan uses the author index");
+        pass("author_index_pages_history");
+    }
+
+    private void bulk_mutations_report_each_id(){
+        InMemoryPostRepository repo = new InMemoryPostRepository();
+        Post a = Post.createNew(10,"spammer","cs","buy now");
+        Post b = Post.createNew(11,"spammer","cs","buy cheap");
+        Post c = Post.createNew(12,"alice","cs","real question");
+        var created = repo.createAll(List.of(a, b, c));
+        assertEq(List.of(10,11,12), new ArrayList<>(created.keySet()), "created in order");
+        assertEq(13, repo.nextId(), "ids continue after the import");
+        assertEq(2, repo.search(new SearchSpec().query("buy")).size(), "imported posts indexed");
+
+        long gen = repo.generation();
+        var hidden = repo.moderateAll(List.of(10, 11, 99), Post.Moderation.HIDDEN);
+        assertTrue(hidden.get(10).isPresent() && hidden.get(11).isPresent(), "found ids changed");
+        assertTrue(hidden.get(99).isEmpty(), "unknown id reported");
+        assertEq(List.of(12), ids(repo.search(new SearchSpec().excludeHidden(true))), "hidden together");
+        assertTrue(repo.generation() > gen, "cache invalidated");
+
+        var deleted = repo.softDeleteAll(List.of(11, 12));
+        assertTrue(deleted.get(12).get().isDeleted(), "deleted");
+        assertEq(List.of(10), ids(repo.search(new SearchSpec())), "deleted together");
+        pass("bulk_mutations_report_each_id");
+    }
+
+    private void failed_batch_changes_nothing(){
+        InMemoryPostRepository repo = new InMemoryPostRepository();
+        repo.createAll(List.of(Post.createNew(10,"ann","cs","first"), Post.createNew(11,"bob","cs","second")));
+        List<PostChange> seen = new java.util.concurrent.CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        AutoCloseable sub = repo.subscribe(c -> { seen.add(c); done.countDown(); });
+        long gen = repo.generation();
+        try {
+            try {
+                repo.moderateAll(java.util.Arrays.asList(10, null, 11), Post.Moderation.HIDDEN);
+                fail("null id should throw");
+            } catch (NullPointerException ok) { }
+            assertEq(gen, repo.generation(), "no version published");
+            assertEq(Post.Moderation.NORMAL, repo.findById(10).get().getModeration(), "id before the null left alone");
+            assertEq(List.of(11,10), ids(repo.search(new SearchSpec().excludeHidden(true))), "nothing hidden");
+            assertEq(0, repo.search(new SearchSpec().moderation(Post.Moderation.HIDDEN)).size(), "hidden bitmap unchanged");
+
+            repo.moderate(11, Post.Moderation.FLAGGED);
+            assertEq(1, repo.search(new SearchSpec().moderation(Post.Moderation.FLAGGED)).size(), "later writes still apply");
+            assertTrue(done.await(5, TimeUnit.SECONDS), "later write delivered");
+        } catch (InterruptedException e) {
+            fail("change feed: "+e);
+        } finally {
+            close(sub);
+        }
+        assertEq(1, seen.size(), "the failed batch announced nothing");
+        assertEq(11, seen.get(0).getPostId(), "only the later write");
+        pass("failed_batch_changes_nothing");
+    }
+
+    private void edit_history_rebuilds_every_version(){
+        InMemoryPostRepository repo = new InMemoryPostRepository();
+        String body = "Intro. ".repeat(400).trim();
+        repo.create(1,"alice","cs", body + "v0");
+        List<String> expected = new ArrayList<>(List.of(body + "v0"));
+        for (int v = 1; v <= 40; v++) {
+            String prev = expected.get(v - 1);
+            String next = (v % 5 == 0) ? "Edit " + v + ": " + prev
+                    : (v % 3 == 0) ? prev.replaceFirst("Intro\\. Intro", "Intro, intro")
+                    : prev + " v" + v;
+            repo.updateContent(1, next);
+            expected.add(next);
+        }
+        repo.moderate(1, Post.Moderation.FLAGGED);
+
+        var history = repo.history(1);
+        assertEq(41, history.size(), "one version per content edit");
+        for (int v = 0; v < expected.size(); v++) {
+            assertEq(expected.get(v), history.get(v).getContent(), "revision " + v);
+            assertEq(expected.get(v), repo.contentAt(1, v), "contentAt " + v);
+        }
+        assertEq(repo.findById(1).get().getEditedAt(), history.get(40).getWrittenAt(), "stamped with the edit");
+
+        EditHistory h = new EditHistory(expected.get(0), java.time.LocalDateTime.now());
+        long full = expected.get(0).length();
+        for (int v = 1; v < expected.size(); v++) {
+            h.add(expected.get(v - 1), expected.get(v), java.time.LocalDateTime.now());
+            full += expected.get(v).length();
+        }
+        assertTrue(h.storedBytes() * 4 < full, "deltas much smaller than full copies: " + h.storedBytes() + " vs " + full);
+        assertEq(expected.get(40), h.content(40), "newest version rebuilt from deltas");
+        assertEq(expected.get(32), h.content(32), "checkpoint read back");
+
+        Post untouched = repo.create("bob","cs","untouched");
+        assertEq(1, repo.history(untouched.getId()).size(), "unedited post has one version");
+        try { repo.contentAt(1, 41); fail("expected IndexOutOfBounds"); }
+        catch (IndexOutOfBoundsException ok) { }
+        pass("edit_history_rebuilds_every_version");
+    }
+
+    private void tiered_bodies_read_back_unchanged(){
+        InMemoryPostRepository repo = new InMemoryPostRepository();
+        repo.setBodyTiers(2, 3);
+        List<String> texts = new ArrayList<>();
+        for (int id = 1; id <= 20; id++) {
+            String text = "Post " + id + " über recursion: " + "the base case comes first. ".repeat(40).trim();
+            texts.add(text);
+            repo.create(id,"u"+id,"cs",text);
+        }
+        TieredBodyStore bodies = repo.getBodyStore();
+        bodies.maintain();
+        assertEq(List.of(2, 3, 15), List.of(bodies.hotCount(), bodies.warmCount(), bodies.coldCount()), "tiers at their limits");
+        long raw = texts.stream().mapToLong(String::length).sum();
+        assertTrue(bodies.footprintBytes() * 3 < raw, "cold bodies compressed: " + bodies.footprintBytes() + " vs " + raw);
+
+        repo.moderate(1, Post.Moderation.FLAGGED);
+        repo.softDelete(2);
+        assertEq(15, bodies.coldCount(), "moderation and delete leave the body cold");
+        assertEq("[deleted]", repo.findById(2).get().getContent(), "masked");
+
+        assertEq(List.of(7), ids(repo.search(new SearchSpec().query("post 7 über"))), "search reads cold bodies");
+        assertEq(2, bodies.tierOf(7), "search peeks without promoting");
+        assertTrue(InvertedIndex.isExact("recursion") && !InvertedIndex.isExact("case comes"), "one word is exact");
+        assertEq(ids(repo.search(new SearchSpec().query("RECURSION"))), ids(repo.search(new SearchSpec().query("case comes"))),
+                "index-only and re-checked keywords agree across tiers");
+        assertEq(List.of(2, 3, 15), List.of(bodies.hotCount(), bodies.warmCount(), bodies.coldCount()), "searches move nothing");
+
+        for (int id = 1; id <= 20; id++) {
+            assertEq(texts.get(id-1), repo.findById(id).get().getRawContent(), "body " + id);
+        }
+        assertEq(List.of(2, 3, 15), List.of(bodies.hotCount(), bodies.warmCount(), bodies.coldCount()), "still at the limits");
+        assertEq(0, bodies.tierOf(20), "last read is hot");
+        assertEq(1, bodies.tierOf(17), "read shortly before is warm");
+        assertEq(2, bodies.tierOf(1), "read long ago is cold");
+
+        repo.updateContent(20, "Rewritten");
+        assertEq("Rewritten", repo.findById(20).get().getRawContent(), "edit replaces the body");
+        assertEq(texts.get(19), repo.contentAt(20, 0), "old version still readable");
+        pass("tiered_bodies_read_back_unchanged");
+    }
+
+    private void change_feed_delivers_in_order() {
+        InMemoryPostRepository repo = new InMemoryPostRepository();
+        List<PostChange> seen = new java.util.concurrent.CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(4);
+        AutoCloseable sub = repo.subscribe(c -> { seen.add(c); done.countDown(); });
+        try {
+            repo.create(1,"alice","cs","first");
+            repo.updateContent(1,"first, edited");
+            repo.moderate(1, Post.Moderation.FLAGGED);
+            repo.softDelete(1);
+            assertTrue(done.await(5, TimeUnit.SECONDS), "all delivered");
+        } catch (InterruptedException e) {
+            fail("change feed: "+e);
+        } finally {
+            close(sub);
+        }
+        List<PostChange.Kind> kinds = new ArrayList<>();
+        for (PostChange c : seen) kinds.add(c.getKind());
+        assertEq(List.of(PostChange.Kind.CREATED, PostChange.Kind.EDITED, PostChange.Kind.MODERATED, PostChange.Kind.DELETED), kinds, "kinds in order");
+        assertTrue(seen.get(0).getBefore() == null, "created has no before");
+        assertEq("first", seen.get(1).getBefore().getContent(), "before version");
+        assertEq("first, edited", seen.get(1).getAfter().getContent(), "after version");
+
+        repo.create(2,"bob","cs","after close");
+        assertEq(4, seen.size(), "closed listener gets nothing");
+        pass("change_feed_delivers_in_order");
+    }
+
+    private void change_feed_groups_batches() {
+        InMemoryPostRepository repo = new InMemoryPostRepository();
+        repo.createAll(List.of(Post.createNew(1,"a","cs","x"), Post.createNew(2,"b","cs","y"), Post.createNew(3,"c","cs","z")));
+        List<PostChange> seen = new java.util.concurrent.CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(4);
+        AutoCloseable sub = repo.subscribe(c -> { seen.add(c); done.countDown(); });
+        try {
+            repo.moderateAll(List.of(1, 2, 3), Post.Moderation.FLAGGED);
+            repo.softDelete(1);
+            assertTrue(done.await(5, TimeUnit.SECONDS), "all delivered");
+        } catch (InterruptedException e) {
+            fail("change feed: "+e);
+        } finally {
+            close(sub);
+        }
+        long batch = seen.get(0).getGeneration();
+        for (int i = 0; i < 3; i++) assertEq(batch, seen.get(i).getGeneration(), "batch change " + i + " stamped with the batch");
+        assertEq(List.of(false, false, true), List.of(seen.get(0).isLastOfWrite(), seen.get(1).isLastOfWrite(), seen.get(2).isLastOfWrite()),
+                "last change closes the batch");
+        assertEq(batch + 1, seen.get(3).getGeneration(), "next write is one generation on");
+        assertEq(repo.generation(), seen.get(3).getGeneration(), "stamps are published generations");
+        assertTrue(seen.get(3).isLastOfWrite(), "a single write is complete by itself");
+        pass("change_feed_groups_batches");
+    }
+
+    private void change_feed_reports_overflow() {
+        InMemoryPostRepository repo = new InMemoryPostRepository();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch overflow = new CountDownLatch(1);
+        int[] received = new int[1];
+        PostChange.Listener slow = new PostChange.Listener() {
+            @Override public void onChange(PostChange c) {
+                try { release.await(); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+                received[0]++;
+            }
+            @Override public void onOverflow() { overflow.countDown(); }
+        };
+        AutoCloseable sub = repo.subscribe(slow, 4);
+        try {
+            long start = System.nanoTime();
+            for (int id = 1; id <= 100; id++) repo.create(id,"u","cs","post "+id);
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "writers never wait");
+            release.countDown();
+            assertTrue(overflow.await(5, TimeUnit.SECONDS), "overflow reported");
+            assertTrue(received[0] < 100, "changes were dropped");
+        } catch (InterruptedException e) {
+            fail("change feed: "+e);
+        } finally {
+            close(sub);
+        }
+        pass("change_feed_reports_overflow");
+    }
+
+    private void change_feed_drops_failing_listener() {
+        ChangeFeed feed = new ChangeFeed();
+        AtomicInteger calls = new AtomicInteger();
+        feed.subscribe(c -> { calls.incrementAndGet(); throw new IllegalStateException("listener bug (expected by test)"); }, 4);
+        feed.publish(PostChange.of(null, Post.createNew(1,"u","cs","x"), 1));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (feed.hasSubscribers() && System.nanoTime() < deadline) Thread.onSpinWait();
+        assertTrue(!feed.hasSubscribers(), "failing listener unsubscribed");
+        feed.publish(PostChange.of(null, Post.createNew(2,"u","cs","y"), 2));
+        assertEq(1, calls.get(), "called once");
+        pass("change_feed_drops_failing_listener");
+    }
+
+    private void listeners_search_the_published_version() {
+        InMemoryPostRepository repo = new InMemoryPostRepository();
+        List<String> problems = new java.util.concurrent.CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        AutoCloseable sub = repo.subscribe(c -> {
+            if (!ids(repo.search(new SearchSpec().query("walrus"))).contains(c.getPostId())) problems.add("not found: " + c);
+            if (repo.generation() < c.getGeneration()) problems.add("behind: " + c);
+            done.countDown();
+        });
+        try {
+            repo.createAll(List.of(Post.createNew(1,"ann","cs","walrus one"),
+                    Post.createNew(2,"ann","cs","walrus two"), Post.createNew(3,"bo","cs","walrus three")));
+            assertTrue(done.await(5, TimeUnit.SECONDS), "all delivered");
+            assertEq(List.of(), problems, "each change is searchable when its listener runs");
+            assertEq(3L, repo.generation(), "one generation per post");
+        } catch (InterruptedException e) {
+            fail("published version: "+e);
+        } finally {
+            close(sub);
+        }
+        pass("listeners_search_the_published_version");
+    }
+
+    /** Closes a subscription handle, failing the test if that throws. */
+    private void close(AutoCloseable sub) {
+        try { sub.close(); } catch (Exception e) { fail("close: "+e); }
+    }
+
+    private static List<Integer> where(InMemoryPostRepository repo, String query){
+        return ids(repo.search(new SearchSpec().where(query)));
+    }
+
+    private static List<Integer> ids(List<Post> posts){
+        List<Integer> out = new ArrayList<>();
+        for (Post p : posts) out.add(p.getId());
+        return out;
+    }
+
     private void notFound_errors(){
         InMemoryPostRepository repo = new InMemoryPostRepository();
         try { repo.updateContent(99,"x"); fail("expected NoSuchElement"); }
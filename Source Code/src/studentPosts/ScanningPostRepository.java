@@ -0,0 +1,250 @@
+package studentPosts;
+
+import entityClasses.Post;
+import entityClasses.Post.Moderation;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The simplest {@link PostRepository}: a map from id to post, with every
+ * method synchronized and every lookup other than by id a scan over all
+ * posts. It keeps no indexes, so there is nothing to get out of step.
+ *
+ * <p>It is the baseline for {@link PostRepositoryBenchmark} and a second,
+ * independent backend for {@link PostRepositoryConformance}. Fuzzy matching
+ * follows the same rule as {@link InvertedIndex#fuzzyCandidates(String)};
+ * {@code RELEVANCE} is not ranked and simply returns newest first.</p>
+ */
+public class ScanningPostRepository implements PostRepository {
+
+    private final Map<Integer, Post> posts = new HashMap<>();
+    private final Map<Integer, List<EditHistory.Revision>> histories = new HashMap<>();
+    private int lastId = 0;
+
+    private static final Comparator<Post> NEWEST_FIRST =
+            Comparator.comparing(Post::getCreatedAt).thenComparingInt(Post::getId).reversed();
+
+    // ============================================================
+    // CREATE
+    // ============================================================
+
+    public synchronized Post create(int id, String author, String thread, String content) {
+        Post p = Post.createNew(id, trim(author), trim(thread), content);
+        put(p);
+        return p;
+    }
+
+    public synchronized Post create(String author, String thread, String content) {
+        return create(nextId(), author, thread, content);
+    }
+
+    public synchronized Map<Integer, Post> createAll(Collection<Post> batch) {
+        Map<Integer, Post> out = new LinkedHashMap<>();
+        for (Post p : batch) {
+            put(p);
+            out.put(p.getId(), p);
+        }
+        return out;
+    }
+
+    public synchronized int nextId() {
+        return ++lastId;
+    }
+
+    // ============================================================
+    // READ
+    // ============================================================
+
+    public synchronized Optional<Post> findById(int id) {
+        return Optional.ofNullable(posts.get(id));
+    }
+
+    public synchronized List<Post> findAll() {
+        return new ArrayList<>(posts.values());
+    }
+
+    public synchronized List<Post> findByThread(String thread) {
+        if (thread == null) return List.of();
+        String t = Post.fold(thread);
+        return posts.values().stream()
+                .filter(p -> p.getFoldedThread().equals(t))
+                .collect(Collectors.toList());
+    }
+
+    public synchronized List<Post> findByAuthor(String author, Integer after, int limit) {
+        if (author == null) return List.of();
+        String a = Post.fold(author.trim());
+        return page(posts.values().stream().filter(p -> p.getFoldedAuthor().equals(a)), after, limit);
+    }
+
+    public synchronized int countByAuthor(String author) {
+        if (author == null) return 0;
+        String a = Post.fold(author.trim());
+        return (int) posts.values().stream().filter(p -> p.getFoldedAuthor().equals(a)).count();
+    }
+
+    /**
+     * Checks every post against every field of the spec, then sorts the
+     * matches newest first and cuts out the page.
+     */
+    public synchronized List<Post> search(SearchSpec spec) {
+        SearchSpec s = (spec == null) ? new SearchSpec() : spec;
+        String q = (s.query == null) ? null : Post.fold(s.query);
+        String t = (s.thread == null) ? null : Post.fold(s.thread);
+        PostQuery where = (s.where == null || s.where.isBlank()) ? null : PostQuery.parse(s.where);
+        List<String> fuzzyTokens = (q == null || !s.fuzzy) ? null : InvertedIndex.tokenize(q);
+
+        Stream<Post> matches = posts.values().stream()
+                .filter(p -> s.includeDeleted || !p.isDeleted())
+                .filter(p -> !s.excludeHidden || p.getModeration() != Moderation.HIDDEN)
+                .filter(p -> s.moderation == null || p.getModeration() == s.moderation)
+                .filter(p -> t == null || p.getFoldedThread().equals(t))
+                .filter(p -> q == null || p.containsFolded(q) || (fuzzyTokens != null && fuzzy(p, fuzzyTokens)))
+                .filter(p -> where == null || where.test(p));
+        return page(matches, s.after, s.limit);
+    }
+
+    /** Keeps a full copy of every version, the cost {@link EditHistory} avoids. */
+    public synchronized List<EditHistory.Revision> history(int id) {
+        require(id);
+        return List.copyOf(histories.get(id));
+    }
+
+    // ============================================================
+    // UPDATE
+    // ============================================================
+
+    public synchronized Post update(Post updated) {
+        require(updated.getId());
+        put(updated);
+        return updated;
+    }
+
+    public synchronized Post updateContent(int id, String newContent) {
+        return change(id, p -> p.withContent(newContent));
+    }
+
+    public synchronized Post moveToThread(int id, String newThread) {
+        return change(id, p -> p.withThread(trim(newThread)));
+    }
+
+    public synchronized Post moderate(int id, Moderation m) {
+        return change(id, p -> p.withModeration(m));
+    }
+
+    public synchronized Map<Integer, Optional<Post>> moderateAll(Collection<Integer> ids, Moderation m) {
+        return changeAll(ids, p -> p.withModeration(m));
+    }
+
+    // ============================================================
+    // DELETE (SOFT DELETE)
+    // ============================================================
+
+    public synchronized Post softDelete(int id) {
+        return change(id, Post::softDeleted);
+    }
+
+    public synchronized Map<Integer, Optional<Post>> softDeleteAll(Collection<Integer> ids) {
+        return changeAll(ids, Post::softDeleted);
+    }
+
+    // ============================================================
+    // INTERNAL HELPERS
+    // ============================================================
+
+    private void put(Post p) {
+        Post old = posts.put(p.getId(), p);
+        if (old == null) {
+            List<EditHistory.Revision> versions = new ArrayList<>();
+            versions.add(new EditHistory.Revision(0, p.getRawContent(), writtenAt(p)));
+            histories.put(p.getId(), versions);
+        } else if (!old.getRawContent().equals(p.getRawContent())) {
+            List<EditHistory.Revision> versions = histories.get(p.getId());
+            versions.add(new EditHistory.Revision(versions.size(), p.getRawContent(), writtenAt(p)));
+        }
+        lastId = Math.max(lastId, p.getId());
+    }
+
+    private Post change(int id, UnaryOperator<Post> how) {
+        Post next = how.apply(require(id));
+        put(next);
+        return next;
+    }
+
+    private Map<Integer, Optional<Post>> changeAll(Collection<Integer> ids, UnaryOperator<Post> how) {
+        Map<Integer, Optional<Post>> out = new LinkedHashMap<>();
+        for (int id : ids) {
+            Post cur = posts.get(id);
+            out.put(id, cur == null ? Optional.empty() : Optional.of(change(id, how)));
+        }
+        return out;
+    }
+
+    /** Sorts newest first and returns the page after {@code after}. */
+    private List<Post> page(Stream<Post> matches, Integer after, int limit) {
+        Post cursor = (after == null) ? null : require(after);
+        Stream<Post> sorted = matches.sorted(NEWEST_FIRST);
+        if (cursor != null) sorted = sorted.filter(p -> NEWEST_FIRST.compare(p, cursor) > 0);
+        if (limit > 0) sorted = sorted.limit(limit);
+        return sorted.collect(Collectors.toList());
+    }
+
+    /**
+     * Whether each query token is within a few typos of a word of the post
+     * (the last token may also be an unfinished word), as in
+     * {@link InvertedIndex#fuzzyCandidates(String)}. {@link ColumnarPostStore}
+     * matches the same way.
+     */
+    static boolean fuzzy(Post p, List<String> queryTokens) {
+        boolean anyFuzzy = false;
+        for (int i = 0; i < queryTokens.size(); i++) {
+            if (TrigramIndex.maxEdits(queryTokens.get(i).length(), i == queryTokens.size() - 1) > 0) anyFuzzy = true;
+        }
+        if (!anyFuzzy) return false;
+
+        List<String> words = InvertedIndex.tokenize(p.getAuthor() + " " + p.getThread() + " " + p.getRawContent());
+        for (int i = 0; i < queryTokens.size(); i++) {
+            String token = queryTokens.get(i);
+            boolean last = (i == queryTokens.size() - 1);
+            int k = TrigramIndex.maxEdits(token.length(), last);
+            boolean found = false;
+            for (String w : words) {
+                if (w.equals(token) || (last && w.startsWith(token))
+                        || (k > 0 && TrigramIndex.distance(token, w, k, last) <= k)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) return false;
+        }
+        return true;
+    }
+
+    private static LocalDateTime writtenAt(Post p) {
+        return (p.getEditedAt() != null) ? p.getEditedAt() : p.getCreatedAt();
+    }
+
+    private Post require(int id) {
+        Post p = posts.get(id);
+        if (p == null) {
+            throw new NoSuchElementException("post " + id + " not found");
+        }
+        return p;
+    }
+
+    private static String trim(String name) {
+        return name == null ? null : name.trim();
+    }
+}
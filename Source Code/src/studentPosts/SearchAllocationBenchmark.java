@@ -0,0 +1,84 @@
+package studentPosts;
+
+import entityClasses.Post;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Measures the bytes allocated by keyword matching, per search, with the
+ * old approach (lower-casing author, thread and content of every post for
+ * every query) and with the folded keys that {@link Post} now caches.
+ *
+ * <p>Run with {@code java studentPosts.SearchAllocationBenchmark [posts]}. It needs
+ * a JVM whose thread MXBean reports allocated bytes (HotSpot does). The
+ * "repository search" line is the full {@link InMemoryPostRepository#search}
+ * call for reference. Its matching no longer allocates; what remains is the
+ * candidate id set built from the inverted index, the stream and the result
+ * list.</p>
+ */
+public class SearchAllocationBenchmark {
+
+    private static final int ROUNDS = 200;
+
+    public static void main(String[] args) {
+        int posts = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        InMemoryPostRepository repo = new InMemoryPostRepository();
+        for (int i = 0; i < posts; i++) {
+            repo.create("Student" + (i % 500), "Thread " + (i % 20),
+                    "Question " + i + " about Recursion, Arrays and Lists");
+        }
+        Collection<Post> all = repo.findAll();
+        String query = "recursion, arr";
+        String folded = Post.fold(query);
+
+        // warm up both paths so the JIT has settled before measuring
+        for (int i = 0; i < ROUNDS; i++) { perPostFold(all, query); cachedKeys(all, folded); }
+
+        long before = allocated();
+        int hits = 0;
+        for (int i = 0; i < ROUNDS; i++) hits = perPostFold(all, query);
+        report("per-post toLowerCase", allocated() - before, posts, hits);
+
+        before = allocated();
+        for (int i = 0; i < ROUNDS; i++) hits = cachedKeys(all, folded);
+        report("cached folded keys", allocated() - before, posts, hits);
+
+        repo.setSearchCacheSize(0);     // measure the search, not the cache
+        SearchSpec spec = new SearchSpec().query(query).thread("thread 3").limit(50);
+        for (int i = 0; i < ROUNDS; i++) repo.search(spec);
+        before = allocated();
+        for (int i = 0; i < ROUNDS; i++) hits = repo.search(spec).size();
+        report("repository search", allocated() - before, posts, hits);
+    }
+
+    /** How search matched keywords before the keys were cached. */
+    private static int perPostFold(Collection<Post> all, String query) {
+        String q = query.toLowerCase(Locale.ROOT);
+        int n = 0;
+        for (Post p : all) {
+            if (p.getAuthor().toLowerCase(Locale.ROOT).contains(q)
+                    || p.getThread().toLowerCase(Locale.ROOT).contains(q)
+                    || p.getRawContent().toLowerCase(Locale.ROOT).contains(q)) n++;
+        }
+        return n;
+    }
+
+    private static int cachedKeys(Collection<Post> all, String folded) {
+        int n = 0;
+        for (Post p : all) if (p.containsFolded(folded)) n++;
+        return n;
+    }
+
+    private static void report(String what, long bytes, int posts, int hits) {
+        System.out.printf("%-22s %,14.0f bytes/search  %8.2f bytes/post  (%d hits)%n",
+                what, (double) bytes / ROUNDS, (double) bytes / ROUNDS / posts, hits);
+    }
+
+    private static long allocated() {
+        com.sun.management.ThreadMXBean mx =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return mx.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
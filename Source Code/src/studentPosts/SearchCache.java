@@ -0,0 +1,100 @@
+package studentPosts;
+
+import entityClasses.Post;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of search results for {@link InMemoryPostRepository}.
+ *
+ * <p>Entries are keyed by a normalized form of the {@link SearchSpec} (see
+ * {@link #key(SearchSpec)}), so specs that only differ in letter case share
+ * one entry. Each entry is stamped with the repository's
+ * generation at the time it was computed. Every write bumps the generation,
+ * so an entry from before the write simply stops matching: nothing has to be
+ * found and invalidated, and a stale result is never returned.</p>
+ */
+public class SearchCache {
+
+    private static final class Entry {
+        final long generation;
+        final List<Post> results;
+
+        Entry(long generation, List<Post> results) {
+            this.generation = generation;
+            this.results = results;
+        }
+    }
+
+    private final int capacity;
+    private final LinkedHashMap<String, Entry> entries;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * @param capacity most entries kept; the least recently used is dropped
+     *                 beyond that. 0 disables the cache.
+     */
+    public SearchCache(int capacity) {
+        this.capacity = Math.max(0, capacity);
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > SearchCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached results for {@code key} if they were computed at
+     * {@code generation}, otherwise {@code null}.
+     */
+    public synchronized List<Post> get(String key, long generation) {
+        Entry e = entries.get(key);
+        if (e == null || e.generation != generation) {
+            if (e != null) entries.remove(key);
+            misses++;
+            return null;
+        }
+        hits++;
+        return e.results;
+    }
+
+    /** Stores read-only results computed at {@code generation}. */
+    public synchronized void put(String key, long generation, List<Post> results) {
+        if (capacity == 0) return;
+        entries.put(key, new Entry(generation, List.copyOf(results)));
+    }
+
+    /** Number of lookups answered from the cache. */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /** Number of lookups that had to run the search. */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /** Number of entries held, including any that are already stale. */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Normalized cache key of a spec. Text fields are case-folded the way
+     * search reads them, and separated by a character that cannot be typed.
+     */
+    public static String key(SearchSpec spec) {
+        if (spec == null) return "";
+        char sep = '\u0001';
+        return norm(spec.query) + sep + norm(spec.thread) + sep + spec.includeDeleted
+                + sep + spec.excludeHidden + sep + spec.moderation + sep + spec.limit + sep + spec.after + sep + spec.fuzzy
+                + sep + spec.order + sep + (spec.where == null ? "" : spec.where.trim());
+    }
+
+    private static String norm(String s) {
+        return s == null ? "\u0000" : Post.fold(s);
+    }
+}
@@ -1,13 +1,32 @@
 package studentPosts;
 
+import entityClasses.Post.Moderation;
+
 /** Dependency-free search spec for Post repository. */
 public class SearchSpec {
+    /** Result order. */
+    public enum Order { NEWEST, RELEVANCE }
+
     public String query;             // substring over author/thread/raw content (case-insensitive)
     public String thread;            // exact thread match (case-insensitive)
     public boolean includeDeleted;   // default false
+    public boolean excludeHidden;    // leave out posts staff have HIDDEN (default false)
+    public Moderation moderation;    // only posts in this moderation state (null = any)
+    public int limit;                // page size; 0 means no limit
+    public Integer after;            // cursor: id of the last post on the previous page (null = first page)
+    public boolean fuzzy;            // also match query words with a few typos (default false)
+    public Order order = Order.NEWEST; // RELEVANCE ranks keyword matches by BM25; needs a query
+    public String where;             // structured query (see PostQuery), ANDed with the fields above
 
     public SearchSpec query(String q){ this.query=q; return this; }
     public SearchSpec thread(String t){ this.thread=t; return this; }
     public SearchSpec includeDeleted(boolean b){ this.includeDeleted=b; return this; }
+    public SearchSpec excludeHidden(boolean b){ this.excludeHidden=b; return this; }
+    public SearchSpec moderation(Moderation m){ this.moderation=m; return this; }
+    public SearchSpec limit(int n){ this.limit=n; return this; }
+    public SearchSpec after(Integer id){ this.after=id; return this; }
+    public SearchSpec fuzzy(boolean b){ this.fuzzy=b; return this; }
+    public SearchSpec order(Order o){ this.order=(o==null ? Order.NEWEST : o); return this; }
+    public SearchSpec where(String w){ this.where=w; return this; }
 }
 
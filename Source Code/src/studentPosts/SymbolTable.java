@@ -0,0 +1,37 @@
+package studentPosts;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical instances of the short strings that repeat across many posts,
+ * i.e. author usernames and thread names. A board with hundreds of thousands
+ * of posts has only a few thousand authors and a few dozen threads, so
+ * {@link InMemoryPostRepository} passes both through {@link #intern(String)}
+ * and every post by the same author, or in the same thread, points at one
+ * shared String instead of its own copy.
+ *
+ * <p>Unlike {@link String#intern()}, the table belongs to one repository and
+ * goes away with it. Entries are never removed: the set of authors and
+ * threads only grows, and is small.</p>
+ */
+public class SymbolTable {
+
+    private final ConcurrentHashMap<String, String> symbols = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the shared instance equal to {@code s}, adding {@code s} as
+     * that instance the first time it is seen.
+     *
+     * @param s text to canonicalize; {@code null} is returned unchanged
+     */
+    public String intern(String s) {
+        if (s == null) return null;
+        String prior = symbols.putIfAbsent(s, s);
+        return prior == null ? s : prior;
+    }
+
+    /** Number of distinct strings held. */
+    public int size() {
+        return symbols.size();
+    }
+}
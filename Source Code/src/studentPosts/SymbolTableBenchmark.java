@@ -0,0 +1,66 @@
+package studentPosts;
+
+import entityClasses.Post;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures how much heap {@link SymbolTable} saves on author and thread
+ * names. It builds the same board twice, once with a fresh String per post
+ * (what arrives from the UI) and once with the names passed through a
+ * symbol table, and reports the retained heap of each.
+ *
+ * <p>Run with {@code java studentPosts.SymbolTableBenchmark [posts authors threads]}.
+ * The figures come from {@link Runtime} after a full GC, so they are
+ * approximate; run it a few times and compare the deltas, not the digits.</p>
+ */
+public class SymbolTableBenchmark {
+
+    public static void main(String[] args) {
+        int posts = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int authors = args.length > 1 ? Integer.parseInt(args[1]) : 3_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+
+        System.out.printf("%d posts, %d authors, %d threads%n", posts, authors, threads);
+
+        long base = usedHeap();
+        List<Post> plain = build(posts, authors, threads, null);
+        long plainBytes = usedHeap() - base;
+        System.out.printf("fresh strings : %,12d bytes (%5.1f bytes/post)%n",
+                plainBytes, (double) plainBytes / posts);
+        plain = null;
+
+        base = usedHeap();
+        SymbolTable symbols = new SymbolTable();
+        List<Post> shared = build(posts, authors, threads, symbols);
+        long sharedBytes = usedHeap() - base;
+        System.out.printf("symbol table  : %,12d bytes (%5.1f bytes/post, %d symbols)%n",
+                sharedBytes, (double) sharedBytes / posts, symbols.size());
+
+        System.out.printf("saved         : %,12d bytes (%.1f%%)%n",
+                plainBytes - sharedBytes, 100.0 * (plainBytes - sharedBytes) / plainBytes);
+        if (shared.size() != posts) throw new AssertionError("lost posts");
+    }
+
+    /** Builds the posts; names are copied each time, as if parsed from input. */
+    private static List<Post> build(int posts, int authors, int threads, SymbolTable symbols) {
+        List<Post> out = new ArrayList<>(posts);
+        for (int i = 0; i < posts; i++) {
+            String author = new String("student" + (i % authors));
+            String thread = new String("thread-" + (i % threads));
+            if (symbols != null) {
+                author = symbols.intern(author);
+                thread = symbols.intern(thread);
+            }
+            out.add(Post.createNew(i, author, thread, "p"));
+        }
+        return out;
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
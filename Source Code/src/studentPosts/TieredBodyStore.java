@@ -0,0 +1,392 @@
+package studentPosts;
+
+import entityClasses.Post;
+
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Holds post bodies in three tiers by how recently they were read:
+ * <ul>
+ *   <li><b>hot</b>: the String itself, read with no work at all;</li>
+ *   <li><b>warm</b>: UTF-8 bytes, decoded on the next read;</li>
+ *   <li><b>cold</b>: packed with other cold bodies into a block of about
+ *       {@link #BLOCK_BYTES} and compressed with {@link Deflater}; the
+ *       next read inflates the block.</li>
+ * </ul>
+ *
+ * <p>Each body is handed out as a {@link Post.Body}, so posts read through
+ * it and {@link Post#getRawContent()} never knows which tier it hit. A read
+ * of a warm or cold body moves it back to hot. When there are more hot or
+ * warm bodies than their limit, a sweep moves the ones read least recently
+ * down a tier. Recency is counted in sweeps, so a hot read only stores one
+ * int and takes no lock.</p>
+ *
+ * <p>Searches {@linkplain Post.Body#peek() peek}: they decode without the
+ * store's lock and move nothing. A hot body keeps its folded form once a
+ * search asked for it. An inflated block is kept through a
+ * {@link SoftReference}, so a scan that meets a block's bodies in any order
+ * inflates it once, and the copy goes as soon as memory is short.</p>
+ *
+ * <p>Only the current body of each post is managed. A body that was
+ * replaced (the post was edited) still answers reads for older versions of
+ * the post that are held elsewhere, but stays in whatever tier it was.</p>
+ *
+ * <p>A cold block is freed once none of its bodies are cold any more; until
+ * then the bodies that were read again still take their share of it.</p>
+ */
+public final class TieredBodyStore {
+
+    /** Default number of bodies kept as Strings. */
+    public static final int DEFAULT_HOT_LIMIT = 10_000;
+
+    /** Default number of bodies kept as plain UTF-8 bytes. */
+    public static final int DEFAULT_WARM_LIMIT = 50_000;
+
+    /** Uncompressed size at which a cold block is closed; bigger blocks compress better but cost more per read. */
+    static final int BLOCK_BYTES = 32 * 1024;
+
+    private final int hotLimit;
+    private final int warmLimit;
+
+    /** Post id -> its current body. Guarded by {@code this}, like the counts below. */
+    private final Map<Integer, Slot> slots = new HashMap<>();
+    private int hot, warm, cold;
+
+    /** Bumped by every sweep; a read stamps its body with it. */
+    private volatile int epoch;
+
+    /**
+     * @param hotLimit  bodies kept as Strings
+     * @param warmLimit bodies kept as UTF-8 bytes; the rest are compressed
+     */
+    public TieredBodyStore(int hotLimit, int warmLimit) {
+        if (hotLimit < 0 || warmLimit < 0) throw new IllegalArgumentException("limits must be >= 0");
+        this.hotLimit = hotLimit;
+        this.warmLimit = warmLimit;
+    }
+
+    /**
+     * Stores {@code text} as the current body of post {@code id}, replacing
+     * the one it had. A new body starts hot, since it is about to be read.
+     */
+    public synchronized Post.Body put(int id, String text) {
+        Slot s = new Slot(text);
+        Slot old = slots.put(id, s);
+        if (old != null) release(old);
+        hot++;
+        if (hot > hotLimit + slack(hotLimit)) sweep();
+        return s;
+    }
+
+    /** The current body of post {@code id}, or null if it has none. */
+    public synchronized Post.Body current(int id) {
+        return slots.get(id);
+    }
+
+    /**
+     * Makes {@code previous}, a body this store gave out for post {@code id}
+     * (or null for none), its current body again, releasing whatever was put
+     * since. Undoes the puts of a write that failed part way.
+     */
+    synchronized void restore(int id, Post.Body previous) {
+        Slot s = (Slot) previous;
+        Slot cur = (s == null) ? slots.remove(id) : slots.put(id, s);
+        if (cur == s) return;
+        if (cur != null) release(cur);
+        if (s == null) return;
+        s.live = true;
+        Object d = s.data;
+        if (d instanceof String) hot++;
+        else if (d instanceof byte[]) warm++;
+        else {
+            cold++;
+            ((Cold) d).block.live++;
+        }
+    }
+
+    /**
+     * Moves the least recently read bodies down a tier until every tier is
+     * within its limit. Runs by itself once a tier is a little over its
+     * limit; call it to settle the tiers now.
+     */
+    public synchronized void maintain() {
+        sweep();
+    }
+
+    public synchronized int hotCount() { return hot; }
+
+    public synchronized int warmCount() { return warm; }
+
+    public synchronized int coldCount() { return cold; }
+
+    /** Tier of post {@code id}'s body: 0 hot, 1 warm, 2 cold; -1 if it has none. For tests. */
+    synchronized int tierOf(int id) {
+        Slot s = slots.get(id);
+        if (s == null) return -1;
+        Object d = s.data;
+        return (d instanceof String) ? 0 : (d instanceof byte[]) ? 1 : 2;
+    }
+
+    /**
+     * Bytes held by the bodies: String contents as Java stores them (one
+     * byte per char for Latin-1 text, two otherwise), warm bytes, and the
+     * compressed blocks. Object headers are left out. Walks every body.
+     */
+    public synchronized long footprintBytes() {
+        long n = 0;
+        Set<Block> blocks = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Slot s : slots.values()) {
+            Object d = s.data;
+            if (d instanceof String) n += stringBytes((String) d);
+            else if (d instanceof byte[]) n += ((byte[]) d).length;
+            else if (blocks.add(((Cold) d).block)) n += ((Cold) d).block.compressed.length;
+        }
+        return n;
+    }
+
+    // ============================================================
+    // INTERNAL HELPERS
+    // ============================================================
+
+    /** How far a tier may run over its limit before a sweep; spreads the sort over many writes. */
+    private static int slack(int limit) {
+        return limit / 8;
+    }
+
+    /** Stops managing a replaced body; it keeps its data for readers of old versions. */
+    private void release(Slot s) {
+        s.live = false;
+        Object d = s.data;
+        if (d instanceof String) hot--;
+        else if (d instanceof byte[]) warm--;
+        else {
+            cold--;
+            Block b = ((Cold) d).block;
+            if (--b.live == 0) b.cache = null;
+        }
+    }
+
+    /** Demotes the least recently read hot bodies to warm, then warm to cold. */
+    private void sweep() {
+        epoch++;
+        if (hot > hotLimit) {
+            for (Slot s : oldest(String.class, hot - hotLimit)) {
+                s.data = ((String) s.data).getBytes(StandardCharsets.UTF_8);
+                s.folded = null;
+            }
+            warm += hot - hotLimit;
+            hot = hotLimit;
+        }
+        if (warm > warmLimit) {
+            List<Slot> batch = oldest(byte[].class, warm - warmLimit);
+            int start = 0, bytes = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                bytes += ((byte[]) batch.get(i).data).length;
+                if (bytes >= BLOCK_BYTES || i == batch.size() - 1) {
+                    compress(batch.subList(start, i + 1));
+                    start = i + 1;
+                    bytes = 0;
+                }
+            }
+            cold += warm - warmLimit;
+            warm = warmLimit;
+        }
+    }
+
+    /** The {@code n} bodies of one tier that were read least recently. */
+    private List<Slot> oldest(Class<?> tier, int n) {
+        List<Slot> in = new ArrayList<>();
+        for (Slot s : slots.values()) {
+            if (tier.isInstance(s.data)) in.add(s);
+        }
+        in.sort(Comparator.comparingInt(s -> s.lastRead));
+        return in.subList(0, n);
+    }
+
+    /** Packs warm bodies into one compressed block and makes them cold. */
+    private void compress(List<Slot> batch) {
+        int[] offsets = new int[batch.size() + 1];
+        for (int i = 0; i < batch.size(); i++) {
+            offsets[i + 1] = offsets[i] + ((byte[]) batch.get(i).data).length;
+        }
+        byte[] raw = new byte[offsets[batch.size()]];
+        for (int i = 0; i < batch.size(); i++) {
+            byte[] b = (byte[]) batch.get(i).data;
+            System.arraycopy(b, 0, raw, offsets[i], b.length);
+        }
+
+        Block block = new Block(deflate(raw), offsets, batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).data = new Cold(block, i);
+        }
+    }
+
+    /** The text of a body's data in any tier. Takes no lock: the data never changes once read. */
+    private static String decode(Object d) {
+        if (d instanceof String) return (String) d;
+        if (d instanceof byte[]) return new String((byte[]) d, StandardCharsets.UTF_8);
+        Cold c = (Cold) d;
+        int from = c.block.offsets[c.index];
+        return new String(c.block.inflated(), from, c.block.offsets[c.index + 1] - from, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Makes a body hot with the text just decoded from {@code was}, unless
+     * it moved meanwhile or was released.
+     */
+    private synchronized void promote(Slot s, Object was, String text) {
+        if (s.data != was || !s.live) return;
+        if (was instanceof byte[]) {
+            warm--;
+        } else {
+            cold--;
+            Block b = ((Cold) was).block;
+            if (--b.live == 0) b.cache = null;
+        }
+        s.data = text;
+        hot++;
+        if (hot > hotLimit + slack(hotLimit)) sweep();
+    }
+
+    /** {@code raw} compressed with {@link Deflater} at its default level. */
+    static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(raw);
+        deflater.finish();
+        byte[] buf = new byte[Math.max(64, raw.length / 2)];
+        int len = 0;
+        while (!deflater.finished()) {
+            if (len == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+            len += deflater.deflate(buf, len, buf.length - len);
+        }
+        deflater.end();
+        return Arrays.copyOf(buf, len);
+    }
+
+    /**
+     * Reverses {@link #deflate(byte[])}.
+     *
+     * @param rawLength length of the original bytes
+     * @throws IllegalStateException if the data is corrupt or shorter than that
+     */
+    static byte[] inflate(byte[] compressed, int rawLength) {
+        byte[] out = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int len = 0;
+            while (len < out.length && !inflater.finished()) {
+                int n = inflater.inflate(out, len, out.length - len);
+                if (n == 0 && inflater.needsInput()) break;
+                len += n;
+            }
+            if (len != out.length) throw new IllegalStateException("truncated compressed text");
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("corrupt compressed text", e);
+        } finally {
+            inflater.end();
+        }
+        return out;
+    }
+
+    private static int stringBytes(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xFF) return s.length() * 2;
+        }
+        return s.length();
+    }
+
+    /** Compressed bodies that were demoted together. */
+    private static final class Block {
+        final byte[] compressed;
+        final int[] offsets;  // body i is bytes [offsets[i], offsets[i + 1]) once inflated
+        int live;             // bodies still cold in it; guarded by the store
+
+        /** The inflated bytes while memory allows; two readers may both inflate, which is harmless. */
+        volatile SoftReference<byte[]> cache;
+
+        Block(byte[] compressed, int[] offsets, int live) {
+            this.compressed = compressed;
+            this.offsets = offsets;
+            this.live = live;
+        }
+
+        byte[] inflated() {
+            SoftReference<byte[]> ref = cache;
+            byte[] raw = (ref == null) ? null : ref.get();
+            if (raw == null) {
+                raw = inflate(compressed, offsets[offsets.length - 1]);
+                cache = new SoftReference<>(raw);
+            }
+            return raw;
+        }
+    }
+
+    /** Where a cold body is: body {@code index} of {@code block}. */
+    private static final class Cold {
+        final Block block;
+        final int index;
+
+        Cold(Block block, int index) {
+            this.block = block;
+            this.index = index;
+        }
+    }
+
+    /** One post's body in whichever tier it is. */
+    private final class Slot implements Post.Body {
+        /** String (hot), byte[] (warm) or {@link Cold}; only replaced under the store's lock. */
+        volatile Object data;
+        /**
+         * {@link Post#fold(String)} of the text while hot, once a search asked
+         * for it. A search racing with a demotion may leave it set on a warm
+         * body; it is still the right text, only not freed until the next one.
+         */
+        volatile String folded;
+        /** Epoch of the last read; a plain field, as a stale value only shifts who is demoted next. */
+        int lastRead;
+        /** False once replaced; guarded by the store. */
+        boolean live = true;
+
+        Slot(String text) {
+            data = text;
+            lastRead = epoch;
+        }
+
+        @Override public String text() {
+            int e = epoch;
+            if (lastRead != e) lastRead = e;
+            Object d = data;
+            if (d instanceof String) return (String) d;
+            String text = decode(d);
+            promote(this, d, text);
+            return text;
+        }
+
+        @Override public String peek() {
+            return decode(data);
+        }
+
+        @Override public String peekFolded() {
+            String f = folded;
+            if (f != null) return f;
+            Object d = data;
+            f = Post.fold(decode(d));
+            if (d instanceof String) folded = f;
+            return f;
+        }
+    }
+}
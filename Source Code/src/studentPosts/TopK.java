@@ -0,0 +1,68 @@
+package studentPosts;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Collector;
+
+/**
+ * Keeps the best {@code k} items offered to it, by a given order, in a
+ * bounded heap whose head is the worst item kept. Offering an item costs
+ * O(log k) and the result is sorted only at the end, so picking a page out
+ * of many matches never sorts all of them.
+ *
+ * <p>{@link #collector(int, Comparator)} wraps it for streams. In a parallel
+ * stream each fork-join task fills its own TopK and the partial results are
+ * merged pairwise, so no task ever holds more than {@code k} items.</p>
+ *
+ * @param <T> item type
+ */
+final class TopK<T> {
+
+    private final int k;
+    private final Comparator<? super T> order;
+    private final PriorityQueue<T> heap;
+
+    /**
+     * @param k     number of items to keep; 0 keeps everything
+     * @param order best item first
+     */
+    TopK(int k, Comparator<? super T> order) {
+        this.k = k;
+        this.order = order;
+        this.heap = new PriorityQueue<>(Math.max(1, Math.min(k, 1024)), order.reversed());
+    }
+
+    /** Keeps {@code item} if it is among the best {@code k} seen so far. */
+    void offer(T item) {
+        if (k <= 0 || heap.size() < k) {
+            heap.add(item);
+        } else if (order.compare(item, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(item);
+        }
+    }
+
+    /** Folds another partial result into this one. */
+    TopK<T> merge(TopK<T> other) {
+        for (T item : other.heap) offer(item);
+        return this;
+    }
+
+    /** The kept items, best first. */
+    List<T> toList() {
+        List<T> out = new ArrayList<>(heap);
+        out.sort(order);
+        return out;
+    }
+
+    /** Stream collector returning the best {@code k} items, best first. */
+    static <T> Collector<T, ?, List<T>> collector(int k, Comparator<? super T> order) {
+        return Collector.of(
+                () -> new TopK<T>(k, order),
+                TopK::offer,
+                TopK::merge,
+                TopK::toList);
+    }
+}
@@ -0,0 +1,174 @@
+package studentPosts;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trigram index over the vocabulary of {@link InvertedIndex}, used for
+ * typo-tolerant search. Every indexed token is padded as {@code $token$} and
+ * split into overlapping three-character grams; each gram maps to the tokens
+ * that contain it.
+ *
+ * <p>{@link #similar(String, boolean)} finds the tokens within a few edits of
+ * a query token in two steps. Candidates must share enough grams with the
+ * query to possibly be that close (one edit changes at most four grams),
+ * and each candidate is then checked with a bounded Damerau-Levenshtein
+ * distance, so a swap such as "recursoin" counts as one edit.</p>
+ *
+ * <p>The index covers distinct tokens rather than posts, so it stays small
+ * (tens of thousands of entries for a six-figure board). A query only touches
+ * the tokens that share its grams, which keeps it fast enough to run on
+ * every keystroke.</p>
+ *
+ * <p>Like {@link InvertedIndex}, which owns it, the index is an immutable
+ * value: {@link #add} and {@link #remove} return the changed index and take
+ * an edit token as {@link PersistentSortedMap} does.</p>
+ */
+public final class TrigramIndex {
+
+    private static final char PAD = '$';
+
+    private static final TrigramIndex EMPTY = new TrigramIndex(PersistentSortedMap.empty());
+
+    /** Gram -> tokens containing it, as sets. */
+    private final PersistentSortedMap<String, PersistentSortedMap<String, Boolean>> tokensByGram;
+
+    private TrigramIndex(PersistentSortedMap<String, PersistentSortedMap<String, Boolean>> tokensByGram) {
+        this.tokensByGram = tokensByGram;
+    }
+
+    /** Returns the empty index. */
+    public static TrigramIndex empty() {
+        return EMPTY;
+    }
+
+    // ============================================================
+    // MAINTENANCE
+    // ============================================================
+
+    /** The index with a token that just entered the vocabulary. */
+    public TrigramIndex add(String token, Object edit) {
+        PersistentSortedMap<String, PersistentSortedMap<String, Boolean>> m = tokensByGram;
+        for (String g : grams(token, true)) {
+            PersistentSortedMap<String, Boolean> tokens = m.get(g);
+            if (tokens == null) tokens = PersistentSortedMap.empty();
+            m = m.with(g, tokens.with(token, Boolean.TRUE, edit), edit);
+        }
+        return (m == tokensByGram) ? this : new TrigramIndex(m);
+    }
+
+    /** The index without a token that no longer occurs in any post. */
+    public TrigramIndex remove(String token, Object edit) {
+        PersistentSortedMap<String, PersistentSortedMap<String, Boolean>> m = tokensByGram;
+        for (String g : grams(token, true)) {
+            PersistentSortedMap<String, Boolean> tokens = m.get(g);
+            if (tokens == null) continue;
+            tokens = tokens.without(token, edit);
+            m = tokens.isEmpty() ? m.without(g, edit) : m.with(g, tokens, edit);
+        }
+        return (m == tokensByGram) ? this : new TrigramIndex(m);
+    }
+
+    // ============================================================
+    // LOOKUP
+    // ============================================================
+
+    /**
+     * Returns the indexed tokens within {@link #maxEdits} edits of
+     * {@code query}.
+     *
+     * @param query  folded query token
+     * @param prefix whether {@code query} may be an unfinished word, in which
+     *               case a token matches if some prefix of it is close enough
+     * @return matching tokens; empty if the query is too short to be fuzzy
+     */
+    public Set<String> similar(String query, boolean prefix) {
+        Set<String> out = new HashSet<>();
+        int k = maxEdits(query.length(), prefix);
+        List<String> queryGrams = grams(query, !prefix);
+        int needed = queryGrams.size() - 4 * k;
+        if (k == 0 || needed < 1) return out;
+
+        Map<String, Integer> shared = new HashMap<>();
+        for (String g : queryGrams) {
+            PersistentSortedMap<String, Boolean> tokens = tokensByGram.get(g);
+            if (tokens == null) continue;
+            tokens.forEach((t, present) -> shared.merge(t, 1, Integer::sum));
+        }
+        for (Map.Entry<String, Integer> e : shared.entrySet()) {
+            if (e.getValue() >= needed && distance(query, e.getKey(), k, prefix) <= k) {
+                out.add(e.getKey());
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Number of typos tolerated in a query token of the given length. Short
+     * words get none, since almost any short word is one edit from another.
+     * The cut-offs keep at least one gram that every match must share.
+     */
+    public static int maxEdits(int length, boolean prefix) {
+        int usable = prefix ? length - 1 : length;
+        if (usable >= 9) return 2;
+        if (usable >= 5) return 1;
+        return 0;
+    }
+
+    // ============================================================
+    // INTERNAL HELPERS
+    // ============================================================
+
+    /**
+     * Grams of {@code $s$}, or of {@code $s} when the end of the word is not
+     * known yet.
+     */
+    private static List<String> grams(String s, boolean closed) {
+        String padded = PAD + s + (closed ? String.valueOf(PAD) : "");
+        List<String> out = new ArrayList<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) out.add(padded.substring(i, i + 3));
+        return out;
+    }
+
+    /**
+     * Optimal-string-alignment distance between {@code a} and {@code b}
+     * (insertions, deletions, substitutions and adjacent swaps), or
+     * {@code k + 1} as soon as it must exceed {@code k}. In prefix mode it is
+     * the distance from {@code a} to the closest prefix of {@code b}.
+     */
+    static int distance(String a, String b, int k, boolean prefix) {
+        int m = a.length();
+        int n = prefix ? Math.min(b.length(), m + k) : b.length();
+        if (!prefix && Math.abs(m - n) > k) return k + 1;
+
+        int[] prev2 = new int[n + 1];
+        int[] prev = new int[n + 1];
+        int[] cur = new int[n + 1];
+        for (int j = 0; j <= n; j++) prev[j] = j;
+
+        for (int i = 1; i <= m; i++) {
+            cur[0] = i;
+            int rowMin = cur[0];
+            for (int j = 1; j <= n; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int d = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d = Math.min(d, prev2[j - 2] + 1);
+                }
+                cur[j] = d;
+                rowMin = Math.min(rowMin, d);
+            }
+            if (rowMin > k) return k + 1;
+            int[] t = prev2; prev2 = prev; prev = cur; cur = t;
+        }
+
+        if (!prefix) return prev[n];
+        int best = k + 1;
+        for (int j = Math.max(0, m - k); j <= n; j++) best = Math.min(best, prev[j]);
+        return best;
+    }
+}